@@ -2,8 +2,7 @@ package ai;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
@@ -11,6 +10,7 @@ import foundation.Direction;
 import foundation.Environment;
 import foundation.Map;
 import foundation.MapElement;
+import foundation.OccupancyGrid;
 import foundation.Position;
 
 /**
@@ -19,21 +19,40 @@ import foundation.Position;
  * @since       1.0
  */
 public class AI {	
-	private Map visionMap = new Map();
-	private HashSet<Position> visitedCells = new HashSet<Position>();
-	private HashSet<Position> unvisitedCells = new HashSet<Position>();
-	private LinkedList<Searcher> searcherList = new LinkedList<Searcher>();
+	public static final long MOVEBUDGET = 200000; //Nanoseconds of planning per move for the application
+	private Map visionMap;
+	private CellStates cellStates; //Known, passable, visited, unvisited and frontier cells as bitboards
+	private ArrayList<Searcher> searcherList = new ArrayList<Searcher>();
 	private final int SEARCHER_COUNT = 7;
 	private States state = States.INITIALIZING;
 	private Position finalGoal;
 	private Random random = new Random();
+	private GoalSearch goalSearch = null; //Plans a Path to the Final Goal for each Searcher, null to follow the distance field instead
+	private long[] goalSearchFailed; //The version of the vision map a Searcher last found no Path to the Final Goal on, -1 if none
+	private BreadthFirstSearch breadthFirstSearch = new BreadthFirstSearch();
+	private PathCache pathCache = new PathCache(); //Paths found so far, shared by all Searchers
+	private DistanceField distanceToFinalGoal = new DistanceField();
+	private OccupancyGrid occupancy; //Where the Searchers are, as far as the AI knows
+	private int[] changedCells = new int[0];
+	private long moveBudget = 0; //Nanoseconds of planning per move, 0 for no bound
+	private int bfsWaits; //Moves of other Searchers waiting for the suspended BFS to be taken up again
 
 	/**
-	 * Public constructor (Default).
+	 * Public constructor (Default), for maps of the classroom size Map.MAPSIZE.
 	 */
 	public AI() {
+		this(Map.MAPSIZE, Map.MAPSIZE);
+	}
 
-		return;
+	/**
+	 * Public constructor for a map of the given size.
+	 * 
+	 * @param width the number of columns of the map played on.
+	 * @param height the number of rows of the map played on.
+	 */
+	public AI(int width, int height) {
+		this.visionMap = new Map(width, height);
+		this.occupancy = new OccupancyGrid(this.visionMap);
 	}
 	
 	/**
@@ -43,11 +62,17 @@ public class AI {
 	 */
 	private void initialize(Environment e){
 		
-		this.visionMap.mergeIn(e);
+		//The Searchers see as far as the game lets them
+		this.cellStates = new CellStates(this.visionMap, e.getRadius());
+		mergeInVision(e);
         this.visionMap.setStart(e.getRefPos());
 
+		GoalSearch search = this.goalSearch != null ? this.goalSearch : new AStar();
+		this.goalSearchFailed = new long[this.SEARCHER_COUNT];
+		Arrays.fill(this.goalSearchFailed, -1);
 		for (int i = 0; i < this.SEARCHER_COUNT; i++) {
-			searcherList.add(new Searcher(i, this.visionMap.getStart()));
+			searcherList.add(new Searcher(i, this.visionMap.getStart(), search, this.breadthFirstSearch, this.pathCache));
+			this.occupancy.enter(this.visionMap.getStart());
 		}
 		this.state = States.EXPLORING;
 		
@@ -63,63 +88,59 @@ public class AI {
 	 */
 	public Direction move(int snr, Environment e) {
 		Direction dir = Direction.SOUTH; //Should not use default
+		long deadline = Deadline.after(this.moveBudget);
 		
 		//Initializes if first turn. Should be made with a switch
 		if (this.state == States.INITIALIZING)
 			initialize(e);
 		
 		Searcher currentSearcher = this.searcherList.get(snr);
+		boolean merged = false;
 		
 		if (this.state == States.EXPLORING){
 			//Update the vision map
-			this.visionMap.mergeIn(e);
-			//Update the visited and unvisited cells sets
-			this.visitedCells.add(currentSearcher.getPosition());
-			this.unvisitedCells.remove(currentSearcher.getPosition());
+			mergeInVision(e);
+			merged = true;
+			//Update the visited cells and recompute the unvisited cells and the frontier if anything changed
+			this.cellStates.markVisited(this.visionMap.index(currentSearcher.getPosition()));
+			this.cellStates.update();
 			
-			//Gets cells around the current searcher to check for finish or unvisited cells, and add the new unvisited cells
-			List<Position> cellsAround = currentSearcher.getCellsAround();
-			addNewUnvisitedCells(cellsAround);
-			//If final found, changes state
-			if (finalGoalIsAround(cellsAround)){
-				dir = getDirToFinalGoal(currentSearcher, cellsAround);
-				this.finalGoal = currentSearcher.getPosition().direct(dir);
+			//If final seen, changes state
+			if (this.finalGoal != null){
 				this.state = States.FINALFOUND;
 			} else {
-				//If current searcher already is traversing to an unvisited cell
-				if (currentSearcherIsTraversingWithPath(currentSearcher)){
-					dir = getDirFromPath(currentSearcher);
-					currentSearcher.direct(dir);
-				} else {
-				//Move to the nearest position according to the movement priority of the current searcher
-					if (isNotYetVisited(cellsAround)){
-						dir = getNextTargetDirByPriority(currentSearcher, cellsAround);
-						currentSearcher.direct(dir);
-					}
-					
-					//If there are no discoverable cells around, looks with bfs for the nearest one and goes, then repeat
-					else {
-						currentSearcher.findShortestPathToNearestUnvisitedCell(this.visionMap, this.unvisitedCells);
-						dir = getDirFromPath(currentSearcher);
-						currentSearcher.direct(dir);
-					}
-				}
+				dir = explore(currentSearcher, deadline);
 			}
 		}
 		
-		//If final is found but paths are not yet established, define them all and change the state to be handled later
+		//If final is found, flood the distances to it once for all searchers instead of a Path for each, and change the state to be handled later
 		if (this.state == States.FINALFOUND){
-			for (Searcher searcher : searcherList) {
-				//Not necessary to handle the searcher that has already finished
-				searcher.findShortestPathToGoalNonGreedy(this.finalGoal, this.visionMap);
-			}
 			this.state = States.TRAVERSINGTOFINAL;
 		}
 		
-		//If all paths to the final goal are set, just traverse to them using the A Star path found before
-		if (this.state == States.TRAVERSINGTOFINAL){
-			dir = getDirFromPath(currentSearcher);
-			currentSearcher.direct(dir);
+		//With a goal search, every Searcher follows its own Path to the final goal, planned when it has none
+		if (this.state == States.TRAVERSINGTOFINAL && this.goalSearch != null){
+			if (!merged)
+				mergeInVision(e);
+			dir = traverseByPath(currentSearcher, deadline);
+		}
+		
+		//Traverse to the final goal downhill the distance field. Searchers still look around on their way, and newly seen LAND only repairs the field around it.
+		//Flood and repair stop at the deadline and go on with the next move; the Searchers the field reaches so far already follow it
+		else if (this.state == States.TRAVERSINGTOFINAL){
+			if (!merged)
+				mergeInVision(e);
+			advanceDistanceField(deadline);
+			//The Final Goal may be seen before any known way leads there, then the Searchers not yet on one look for it
+			if (isOnWayToFinalGoal(currentSearcher)) {
+				currentSearcher.clearPath();
+				dir = getDirToFinalGoalByDistance(currentSearcher);
+				moveSearcher(currentSearcher, dir);
+			} else {
+				this.cellStates.markVisited(this.visionMap.index(currentSearcher.getPosition()));
+				this.cellStates.update();
+				dir = explore(currentSearcher, deadline);
+			}
 		}
 		
 		
@@ -127,35 +148,215 @@ public class AI {
 	}
 
 	/**
-	 * Adds all the Position elements of the list cellsAround to the AI's unvisitedCells list. Guarantees all positions added are inside the Map.
+	 * Flood the distance field to the Final Goal, or repair it, until the deadline. Both go on with the next move.
+	 * 
+	 * @param deadline the deadline of the planning, or Deadline.NONE.
+	 */
+	private void advanceDistanceField(long deadline) {
+		if (this.distanceToFinalGoal.isValid()) {
+			this.distanceToFinalGoal.repair(this.visionMap, deadline);
+		} else if (this.distanceToFinalGoal.isFlooding()) {
+			this.distanceToFinalGoal.resume(this.visionMap, deadline);
+		} else {
+			this.distanceToFinalGoal.start(this.visionMap, this.visionMap.index(this.finalGoal));
+			this.distanceToFinalGoal.resume(this.visionMap, deadline);
+		}
+	}
+
+	/**
+	 * Moves the current Searcher along its Path to the Final Goal. A Searcher without one plans it with the goal search,
+	 * again only once the vision map has changed since it last found none; until there is a Path, it explores.
+	 * Under a deadline the goal search is given up when it runs out of time, and is tried again next move; meanwhile
+	 * the Searcher goes downhill the distance field, which is flooded under the same deadline, if it already leads there.
+	 * 
+	 * @param currentSearcher the Searcher
+	 * @param deadline the deadline of the planning, or Deadline.NONE.
+	 * @return the Direction taken.
+	 */
+	private Direction traverseByPath(Searcher currentSearcher, long deadline) {
+		int id = currentSearcher.getID();
+		boolean bounded = deadline != Deadline.NONE;
+		if (bounded)
+			advanceDistanceField(deadline);
+		//A Path blocked by another searcher is planned again
+		if (currentSearcher.hasPathTo(this.visionMap, this.finalGoal) && nextPathPositionIsOccupied(currentSearcher))
+			currentSearcher.clearPath();
+		if (!currentSearcher.hasPathTo(this.visionMap, this.finalGoal) && this.goalSearchFailed[id] != this.visionMap.getVersion()) {
+			if (currentSearcher.findPathToGoal(this.finalGoal, this.visionMap, deadline))
+				this.goalSearchFailed[id] = -1;
+			else if (!Deadline.isPassed(deadline))
+				this.goalSearchFailed[id] = this.visionMap.getVersion();
+		}
+		if (currentSearcher.hasPathTo(this.visionMap, this.finalGoal)) {
+			Direction dir = getDirFromPath(currentSearcher);
+			moveSearcher(currentSearcher, dir);
+			return dir;
+		}
+		if (bounded && isOnWayToFinalGoal(currentSearcher)) {
+			currentSearcher.clearPath();
+			Direction dir = getDirToFinalGoalByDistance(currentSearcher);
+			moveSearcher(currentSearcher, dir);
+			return dir;
+		}
+		this.cellStates.markVisited(this.visionMap.index(currentSearcher.getPosition()));
+		this.cellStates.update();
+		return explore(currentSearcher, deadline);
+	}
+
+	/**
+	 * Selects how the Searchers go to the Final Goal once it is found: downhill one distance field shared by all of them,
+	 * or each along its own Path planned by a goal search, A Star, Jump Point Search or HPA*. The goal search is told
+	 * about every cell the vision map changes. Under a move budget a goal search that runs out of time is given up for
+	 * that move, and the Searcher follows the distance field meanwhile. To be set before the first move.
+	 * 
+	 * @param goalSearch the goal search, null for the distance field.
+	 */
+	public void setGoalSearch(GoalSearch goalSearch) {
+		this.goalSearch = goalSearch;
+	}
+
+	/**
+	 * Getter for the goal search the Searchers plan their Paths to the Final Goal with.
+	 * 
+	 * @return the goal search, null if they follow the distance field.
+	 */
+	public GoalSearch getGoalSearch() {
+		return this.goalSearch;
+	}
+
+	/**
+	 * Bounds the planning of the searches of every move: the BFS to the nearest unvisited cell and the distance field stop
+	 * at the deadline and go on with a later move, and the Searcher meanwhile walks as far as they have got, or one step
+	 * to free LAND. A goal search to the Final Goal stops at the deadline too, and the Searcher follows the distance field
+	 * until one gets there in time. Only the searches are bounded: merging the vision, updating the cell states around it
+	 * and rebuilding the clusters of HPA* are not, so moves do take longer than the budget now and then. To be set before
+	 * the first move.
+	 * 
+	 * @param nanos the budget in nanoseconds, 0 for no bound.
+	 */
+	public void setMoveBudget(long nanos) {
+		this.moveBudget = nanos;
+	}
+
+	/**
+	 * Getter for the planning budget of every move.
+	 * 
+	 * @return the budget in nanoseconds, 0 for no bound.
+	 */
+	public long getMoveBudget() {
+		return this.moveBudget;
+	}
+
+	/**
+	 * Getter for the Paths the Searchers have found, with the hits and misses.
+	 * 
+	 * @return the PathCache.
+	 */
+	public PathCache getPathCache() {
+		return this.pathCache;
+	}
+
+	/**
+	 * Moves the current Searcher on to discover more of the Map: along its Path, else to an unvisited neighbour by its priorities, else along a new Path to the nearest unvisited cell.
 	 * 
-	 * @param cellsAround the potential cells to be added
+	 * @param currentSearcher the Searcher
+	 * @param deadline the deadline of the planning, or Deadline.NONE.
+	 * @return the Direction taken.
 	 */
-	private void addNewUnvisitedCells(List<Position> cellsAround) {
-		for (Position position : cellsAround) {
-			if (position.getColumn() >= 0 && position.getColumn() <=99 && position.getRow() >= 0 && position.getRow() <=99){
-				if (this.visionMap.getAt(position) == MapElement.LAND || this.visionMap.getAt(position) == MapElement.FINISH){
-					if (!(this.visitedCells.contains(position)) && !(this.unvisitedCells.contains(position))){ //Could avoid the second check by using a good hashcode
-						this.unvisitedCells.add(position);
-					}
+	private Direction explore(Searcher currentSearcher, long deadline) {
+		Direction dir;
+		//A Path blocked by another searcher is stale (its target may already be visited), so plan again instead of waiting for each other
+		if (currentSearcherIsTraversingWithPath(currentSearcher) && nextPathPositionIsOccupied(currentSearcher))
+			currentSearcher.clearPath();
+		//If current searcher already is traversing to an unvisited cell. A partial Path of a suspended bfs is only walked while the bfs goes on
+		if (currentSearcherIsTraversingWithPath(currentSearcher) && !currentSearcher.hasPartialPath()){
+			dir = getDirFromPath(currentSearcher);
+			moveSearcher(currentSearcher, dir);
+		} else {
+		//Move to the nearest position according to the movement priority of the current searcher
+			if (isNotYetVisited(currentSearcher)){
+				dir = getNextTargetDirByPriority(currentSearcher);
+				moveSearcher(currentSearcher, dir);
+			}
+			
+			//If there are no discoverable cells around, looks with bfs for the nearest one and goes, then repeat.
+			//A bfs stopped by the deadline leaves a Path as far as it has got, and goes on with the next Searcher that stands in its tree.
+			//The others wait for it, stepping greedily, a round of moves at most before they start it again
+			else if (this.cellStates.hasFrontier()) {
+				BreadthFirstSearch bfs = this.breadthFirstSearch;
+				int cell = this.visionMap.index(currentSearcher.getPosition());
+				if (!bfs.isSuspended() || bfs.isReached(cell) || ++this.bfsWaits > this.SEARCHER_COUNT) {
+					this.bfsWaits = 0;
+					currentSearcher.findShortestPathToNearestUnvisitedCell(this.visionMap, this.cellStates, deadline);
+				} else {
+					currentSearcher.clearPath();
 				}
+				if (currentSearcherIsTraversingWithPath(currentSearcher))
+					dir = getDirFromPath(currentSearcher);
+				else
+					dir = getGreedyDir(currentSearcher);
+				moveSearcher(currentSearcher, dir);
+			}
+			
+			//Nothing left to discover, no unvisited cell has an unknown one in sight
+			else {
+				dir = Direction.STAY;
 			}
 		}
+		return dir;
+	}
+
+	/**
+	 * Moves a Searcher in Direction dir, and takes note of where it is now.
+	 * 
+	 * @param searcher the Searcher
+	 * @param dir the Direction
+	 */
+	private void moveSearcher(Searcher searcher, Direction dir) {
+		Position from = searcher.getPosition();
+		searcher.direct(this.visionMap, dir);
+		this.occupancy.move(from, searcher.getPosition());
+	}
+
+	/**
+	 * Merges the Environment into the vision map, and tells the cell states, the distance field and the goal search which cells it changed,
+	 * as logged by the vision map. The first FINISH seen becomes the Final Goal.
+	 * 
+	 * @param e the environment
+	 */
+	private void mergeInVision(Environment e) {
+		//A merge changes every cell at most once
+		int size = e.getSize();
+		if (this.changedCells.length < size * size) {
+			this.changedCells = new int[size * size];
+			this.visionMap.trackChanges(size * size);
+		}
+		long version = this.visionMap.getVersion();
+		this.visionMap.mergeIn(e);
+		int changed = this.visionMap.getChanges(version, this.changedCells);
+		for (int k = 0; k < changed; k++) {
+			this.cellStates.cellChanged(this.visionMap, this.changedCells[k]);
+			this.distanceToFinalGoal.cellChanged(this.visionMap, this.changedCells[k]);
+			if (this.goalSearch != null)
+				this.goalSearch.cellChanged(this.visionMap, this.changedCells[k]);
+			this.pathCache.cellChanged(this.visionMap, this.changedCells[k]);
+			if (this.finalGoal == null && this.visionMap.getAt(this.changedCells[k]) == MapElement.FINISH)
+				this.finalGoal = this.visionMap.position(this.changedCells[k]);
+		}
 	}
 
 	/**
 	 * Returns a preferred direction for a determined Searcher. A preferred direction is a predefined ideal direction for each Searcher, so each one explores in different directions.
 	 * 
 	 * @param currentSearcher the Searcher to move.
-	 * @param cellsAround the potential cells to move the Searcher to.
 	 * @return the Direction the Searcher will take.
 	 */
-	private Direction getNextTargetDirByPriority(Searcher currentSearcher, List<Position> cellsAround) {
+	private Direction getNextTargetDirByPriority(Searcher currentSearcher) {
 		//For each direction priority of the current searcher, look if that direction is unvisited
 		List<Direction> directions = currentSearcher.getDirectionsPriorities();
 		for (Direction direction : directions) {
 			//If it is unvisited, then return the direction to take to that position
-			if (this.unvisitedCells.contains(currentSearcher.getPosition().direct(direction))){
+			if (this.cellStates.isUnvisited(this.visionMap.index(this.visionMap.direct(currentSearcher.getPosition(), direction)))){
 				if (moveToDirectionIsPossible(currentSearcher.getPosition(), direction)){
 					return direction;
 				} else {
@@ -177,6 +378,22 @@ public class AI {
 		return Direction.STAY;
 	}
 
+	/**
+	 * Returns the first Direction by the priorities of a Searcher to a free LAND neighbour, for a Searcher that has no Path yet.
+	 * 
+	 * @param currentSearcher the Searcher
+	 * @return the Direction, STAY if no neighbour is free.
+	 */
+	private Direction getGreedyDir(Searcher currentSearcher) {
+		Position position = currentSearcher.getPosition();
+		for (Direction direction : currentSearcher.getDirectionsPriorities()) {
+			Position to = this.visionMap.direct(position, direction);
+			if (!to.equals(position) && this.visionMap.getAt(to) == MapElement.LAND && moveToDirectionIsPossible(position, direction))
+				return direction;
+		}
+		return Direction.STAY;
+	}
+
 	/**
 	 * Returns a random direction.
 	 * 
@@ -198,17 +415,16 @@ public class AI {
 	}
 
 	/**
-	 * Returns true if there exist a cell in cellAround that hasn't been visited.
+	 * Returns true if there exist a cell next to the current Searcher that hasn't been visited. Only these can be reached in one step, whatever the visibility.
 	 * 
-	 * @param cellsAround the list of cells
+	 * @param currentSearcher the Searcher
 	 * @return boolean
 	 */
-	private boolean isNotYetVisited(List<Position> cellsAround) {
-		for (Position position : cellsAround) {
-			if(this.visionMap.getAt(position) == MapElement.LAND || this.visionMap.getAt(position) == MapElement.FINISH){
-				if (this.unvisitedCells.contains(position))
-					return true;
-			}
+	private boolean isNotYetVisited(Searcher currentSearcher) {
+		int cell = this.visionMap.index(currentSearcher.getPosition());
+		for (int n = this.visionMap.neighbours(cell); n != 0; n &= n - 1) {
+			if (this.cellStates.isUnvisited(cell + this.visionMap.neighbourOffset(Integer.numberOfTrailingZeros(n))))
+				return true;
 		}
 		return false;
 	}
@@ -220,12 +436,63 @@ public class AI {
 	 * @return the Direction
 	 */
 	private Direction getDirFromPath(Searcher currentSearcher) {
-		if (moveToDirectionIsPossible(currentSearcher.getPosition(), getDirFromTo(currentSearcher.getPosition(), currentSearcher.peekNextPathPosition()))){
-			return getDirFromTo(currentSearcher.getPosition(), currentSearcher.popNextPathPosition());//TODO DELETE
+		if (!currentSearcher.hasPathAssigned())
+			return Direction.STAY;
+		Direction dir = getDirFromTo(currentSearcher.getPosition(), currentSearcher.peekNextPathPosition(this.visionMap));
+		if (moveToDirectionIsPossible(currentSearcher.getPosition(), dir)){
+			currentSearcher.advancePath();
+			return dir;
 		}
 		return Direction.STAY;
 	}
 
+	/**
+	 * Gets the Direction to the free neighbour of the current Searcher that is closest to the Final Goal, according to the distance field.
+	 * 
+	 * @param currentSearcher the Searcher
+	 * @return the Direction, STAY if all neighbours closer to the Final Goal are taken.
+	 */
+	private Direction getDirToFinalGoalByDistance(Searcher currentSearcher) {
+		Position position = currentSearcher.getPosition();
+		int bestDistance = this.distanceToFinalGoal.getDistance(this.visionMap.index(position));
+		Direction dir = Direction.STAY;
+		for (Direction direction : currentSearcher.getDirectionsPriorities()) {
+			int distance = this.distanceToFinalGoal.getDistance(this.visionMap.index(this.visionMap.direct(position, direction)));
+			if (distance < bestDistance && moveToDirectionIsPossible(position, direction)){
+				bestDistance = distance;
+				dir = direction;
+			}
+		}
+		return dir;
+	}
+
+	/**
+	 * Returns true if the distance field leads the current Searcher to the Final Goal, from its cell or from a neighbour.
+	 * 
+	 * @param currentSearcher the Searcher
+	 * @return boolean
+	 */
+	private boolean isOnWayToFinalGoal(Searcher currentSearcher) {
+		int cell = this.visionMap.index(currentSearcher.getPosition());
+		if (this.distanceToFinalGoal.getDistance(cell) != DistanceField.UNREACHABLE)
+			return true;
+		for (int n = this.visionMap.neighbours(cell); n != 0; n &= n - 1) {
+			if (this.distanceToFinalGoal.getDistance(cell + this.visionMap.neighbourOffset(Integer.numberOfTrailingZeros(n))) != DistanceField.UNREACHABLE)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if the next Position in the Path of the current Searcher is taken by another Searcher.
+	 * 
+	 * @param currentSearcher the Searcher
+	 * @return boolean
+	 */
+	private boolean nextPathPositionIsOccupied(Searcher currentSearcher) {
+		return !moveToDirectionIsPossible(currentSearcher.getPosition(), getDirFromTo(currentSearcher.getPosition(), currentSearcher.peekNextPathPosition(this.visionMap)));
+	}
+
 	/**
 	 * Returns true if the movement from Position position in Direction dir is valid.
 	 * 
@@ -234,11 +501,10 @@ public class AI {
 	 * @return boolean
 	 */
 	private boolean moveToDirectionIsPossible(Position position, Direction dir) {
-		for (Searcher searcher : this.searcherList) {
-			if(searcher.getPosition().equals(position.direct(dir)) && !(searcher.getPosition().equals(this.finalGoal))){
-				return false;
-			}
-		}
+		Position to = this.visionMap.direct(position, dir);
+		//Searchers on the Final Goal have left the Map
+		if (this.occupancy.isOccupied(to) && !to.equals(this.finalGoal))
+			return false;
 		//TODO Other checks needed
 		return true;
 	}
@@ -252,25 +518,6 @@ public class AI {
 	private boolean currentSearcherIsTraversingWithPath(Searcher currentSearcher) {
 		return currentSearcher.hasPathAssigned();
 	}
-
-	/**
-	 * Returns the Direction to the Final Goal, when the Final Goal is in the cells Around the current Searcher. Assumes cellsAround are at distance 1 from the Searcher.
-	 * 
-	 * @param currentSearcher the searcher to move to the Final Goal
-	 * @param cellsAround the Direction to take to reach the Final Goal
-	 * @return
-	 */
-	private Direction getDirToFinalGoal(Searcher currentSearcher, List<Position> cellsAround) {
-		Position searcherCurrentPosition = currentSearcher.getPosition();
-		Position finalGoalPosition = searcherCurrentPosition; //Not necessary to handle the event of no final around 
-
-		for (Position position : cellsAround) {
-			if(this.visionMap.getAt(position) == MapElement.FINISH)
-				finalGoalPosition = position;
-		}
-		
-		return getDirFromTo(searcherCurrentPosition, finalGoalPosition);
-	}
 	
 	/**
 	 * Returns the Direction in order to get from the initial Position from to the final Position to.
@@ -309,18 +556,4 @@ public class AI {
 		return dir;
 	}
 
-	/**
-	 * Returns true if the Final Goal is in the cellsAround List.
-	 * 
-	 * @param cellsAround the List to check.
-	 * @return boolean
-	 */
-	private boolean finalGoalIsAround(List<Position> cellsAround) {
-		for (Position position : cellsAround) {
-			if(this.visionMap.getAt(position) == MapElement.FINISH)
-				return true;
-		}
-		return false;
-	}
-
 }
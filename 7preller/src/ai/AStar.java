@@ -0,0 +1,81 @@
+package ai;
+
+import foundation.Map;
+import foundation.MapElement;
+
+/**
+ * A Star over flat cell indices. The per-cell data are kept between searches in
+ * {@link SearchNodes}, so nothing has to be cleared or reallocated.
+ * 
+ * @author      Patricio Reller <reller@mail.hs-ulm.de>
+ * @version     1.0 
+ * @since       1.0
+ */
+public class AStar implements GoalSearch {
+	private final SearchNodes nodes = new SearchNodes();
+	private int expansions;
+
+	@Override
+	public boolean findPath(Map map, int start, int goal, Path path, long deadline) {
+		this.nodes.prepare(map.getCellCount());
+		path.clear();
+		this.expansions = 0;
+
+		int goalColumn = map.column(goal);
+		int goalRow = map.row(goal);
+		
+		this.nodes.offer(start, 0, start, heuristic(map, start, goalColumn, goalRow));
+
+		while (!this.nodes.isEmpty()) {
+			if ((this.expansions & 63) == 63 && Deadline.isPassed(deadline)) {
+				this.nodes.clear();
+				return false;
+			}
+			int current = this.nodes.poll();
+			this.expansions++;
+			
+			int column = map.column(current);
+			int row = map.row(current);
+			int successorG = this.nodes.getG(current) + 1;
+			for (int n = map.neighbours(column, row); n != 0; n &= n - 1) {
+				int k = Integer.numberOfTrailingZeros(n);
+				int successor = current + map.neighbourOffset(k);
+				
+				//With a consistent heuristic the goal is optimal as soon as it is generated
+				if (successor == goal) {
+					this.nodes.fill(path, start, goal, current);
+					this.nodes.clear();
+					return true;
+				}
+				int i = column + Map.neighbourColumnOffset(k);
+				int j = row + Map.neighbourRowOffset(k);
+				if (map.getAt(i, j) != MapElement.LAND || this.nodes.isClosed(successor))
+					continue;
+				
+				//Either a new cell, or a shorter way to a queued one: decrease its key
+				if (this.nodes.improves(successor, successorG))
+					this.nodes.offer(successor, successorG, current, Math.max(Math.abs(i - goalColumn), Math.abs(j - goalRow)));
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public int getExpansions() {
+		return this.expansions;
+	}
+
+	/**
+	 * Marks the cells reached by the last search and their neighbours, which is every cell it has read.
+	 */
+	@Override
+	public boolean markCorridor(Map map, Corridor corridor) {
+		for (int i = 0; i < this.nodes.getReachedCount(); i++)
+			corridor.markAround(map, this.nodes.getReached(i));
+		return true;
+	}
+
+	private static int heuristic(Map map, int cell, int goalColumn, int goalRow) {
+		return Math.max(Math.abs(map.column(cell) - goalColumn), Math.abs(map.row(cell) - goalRow));
+	}
+}
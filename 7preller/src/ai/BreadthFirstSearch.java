@@ -0,0 +1,240 @@
+package ai;
+
+import java.util.Arrays;
+
+import foundation.Map;
+import foundation.MapElement;
+
+/**
+ * Breadth first search over flat cell indices for the nearest of a set of target cells.
+ * The cells reached are queued in order in an int array, and their parents and generation
+ * stamps kept in {@link CellArray}s, so a search allocates nothing once it has grown to the
+ * part of the Map it searches, and a search of a small part of a large Map stays small.
+ * <p>
+ * Given a deadline, a search can be spread over several calls. Meanwhile the searcher can
+ * walk into the cells already reached, along a partial Path: any cell of the search tree can
+ * go on with the search, and gets a Path through the tree to the target found.
+ * 
+ * @author      Patricio Reller <reller@mail.hs-ulm.de>
+ * @version     1.0 
+ * @since       1.0
+ */
+public class BreadthFirstSearch {
+	private int[] queue = new int[64];
+	private final CellArray parent = new CellArray(0);
+	private final CellArray seen = new CellArray(0);
+	private int generation = 0;
+	private int expansions;
+	private int start;
+	private int head;
+	private int tail;
+	private boolean suspended;
+	private boolean resumed;
+	private int partialTarget;
+	private int[] ancestors = new int[16];
+
+	/**
+	 * Finds a shortest Path from start to the nearest target cell. Only LAND is traversed, the target itself may be of any kind.
+	 * 
+	 * @param map the Map to search.
+	 * @param start the index of the initial cell.
+	 * @param targets the target cells as a bitboard, bit index % 64 of word index / 64.
+	 * @param path the Path to fill, from the first step to the target. Emptied if no target is reachable.
+	 * @return true if a target is reachable.
+	 */
+	public boolean findPath(Map map, int start, long[] targets, Path path) {
+		return findPath(map, start, targets, path, Deadline.NONE);
+	}
+
+	/**
+	 * Finds a shortest Path from start to the nearest target cell, until a deadline. A search stopped by the deadline is
+	 * suspended, and the next search from a cell it has reached goes on with it instead of starting again. The cells seen
+	 * in between are taken as they are then, and a Path from another cell than the first start goes through the search
+	 * tree, so the Path may be longer than the shortest one, but it is a Path.
+	 * 
+	 * @param map the Map to search.
+	 * @param start the index of the initial cell.
+	 * @param targets the target cells as a bitboard, bit index % 64 of word index / 64.
+	 * @param path the Path to fill, from the first step to the target. Emptied if no target is reachable or the search is suspended.
+	 * @param deadline the deadline, or Deadline.NONE.
+	 * @return true if a target is reachable.
+	 */
+	public boolean findPath(Map map, int start, long[] targets, Path path, long deadline) {
+		path.clear();
+		if (this.suspended && isReached(start)) {
+			this.resumed = true;
+		} else {
+			prepare(map.getCellCount());
+			this.expansions = 0;
+			this.resumed = false;
+			this.start = start;
+			this.partialTarget = start;
+			
+			//Every cell is queued at most once, so the queue keeps all cells reached in order from index 0
+			this.head = 0;
+			this.tail = 0;
+			this.queue[this.tail++] = start;
+			this.seen.set(start, this.generation);
+		}
+		this.suspended = false;
+		
+		int head = this.head, tail = this.tail;
+		int expanded = 0;
+		while (head != tail) {
+			if ((++expanded & 63) == 0 && Deadline.isPassed(deadline)) {
+				this.head = head;
+				this.tail = tail;
+				this.suspended = true;
+				return false;
+			}
+			int current = this.queue[head++];
+			this.expansions++;
+			
+			int column = map.column(current);
+			int row = map.row(current);
+			for (int n = map.neighbours(column, row); n != 0; n &= n - 1) {
+				int k = Integer.numberOfTrailingZeros(n);
+				int successor = current + map.neighbourOffset(k);
+				if (this.seen.get(successor) == this.generation)
+					continue;
+				
+				//The first target generated is a nearest one
+				if ((targets[successor >>> 6] & (1L << successor)) != 0) {
+					this.parent.set(successor, current);
+					this.head = head;
+					this.tail = tail;
+					fill(start, successor, path);
+					return true;
+				}
+				if (map.getAt(column + Map.neighbourColumnOffset(k), row + Map.neighbourRowOffset(k)) != MapElement.LAND)
+					continue;
+				this.seen.set(successor, this.generation);
+				this.parent.set(successor, current);
+				if (tail == this.queue.length)
+					this.queue = Arrays.copyOf(this.queue, 2 * tail);
+				this.queue[tail++] = successor;
+			}
+		}
+		this.head = head;
+		this.tail = tail;
+		return false;
+	}
+
+	/**
+	 * Fills the Path from a cell the suspended search has reached as far as the search has got, to walk it while the search
+	 * goes on: to the cell reached last if its way from the start passes the cell, else on to the cell chosen before.
+	 * 
+	 * @param from the index of the cell, the Searcher's.
+	 * @param path the Path to fill. Emptied if the search is not suspended, or has got no further than the cell.
+	 * @return true if the Path leads anywhere.
+	 */
+	public boolean findPartialPath(int from, Path path) {
+		path.clear();
+		if (!this.suspended || !isReached(from))
+			return false;
+		if (!fillDown(from, this.queue[this.tail - 1], path))
+			fillDown(from, this.partialTarget, path);
+		return !path.isEmpty();
+	}
+
+	/**
+	 * Returns true if the last search was stopped by its deadline before it came to an end.
+	 * 
+	 * @return boolean
+	 */
+	public boolean isSuspended() {
+		return this.suspended;
+	}
+
+	/**
+	 * Returns true if the last search has reached a cell, so a search from it can go on with the suspended one.
+	 * 
+	 * @param cell the index of the cell.
+	 * @return boolean
+	 */
+	public boolean isReached(int cell) {
+		return this.generation > 0 && this.seen.get(cell) == this.generation;
+	}
+
+	/**
+	 * Getter for the number of cells expanded by the last search.
+	 * 
+	 * @return the number of expansions.
+	 */
+	public int getExpansions() {
+		return this.expansions;
+	}
+
+	/**
+	 * Marks every cell the last search has read, the cells it reached and their neighbours, on a Corridor.
+	 * As long as none of them changes and the target found stays a target, the same search gives the same Path.
+	 * A search that went on after a suspension may have read the cells before they changed, and cannot tell.
+	 * 
+	 * @param map the Map searched.
+	 * @param corridor the Corridor to mark the cells on.
+	 * @return true if the cells are marked.
+	 */
+	public boolean markCorridor(Map map, Corridor corridor) {
+		if (this.resumed || this.suspended)
+			return false;
+		for (int i = 0; i < this.tail; i++)
+			corridor.markAround(map, this.queue[i]);
+		return true;
+	}
+
+	// The Path from a cell of the search tree to the target, up to the ancestor they share and down again
+	private void fill(int from, int target, Path path) {
+		int a = from, b = target;
+		int depthA = depth(a), depthB = depth(b);
+		int up = 0;
+		while (depthB > depthA) {
+			path.push(b);
+			b = this.parent.get(b);
+			depthB--;
+		}
+		while (depthA > depthB || a != b) {
+			if (depthA == depthB) {
+				path.push(b);
+				b = this.parent.get(b);
+				depthB--;
+			}
+			a = this.parent.get(a);
+			depthA--;
+			if (up == this.ancestors.length)
+				this.ancestors = Arrays.copyOf(this.ancestors, 2 * up);
+			this.ancestors[up++] = a;
+		}
+		while (up > 0)
+			path.push(this.ancestors[--up]);
+	}
+
+	// The Path down the search tree from a cell to one below it, false if the other cell is not below it
+	private boolean fillDown(int from, int to, Path path) {
+		path.clear();
+		for (int cell = to; cell != from; cell = this.parent.get(cell)) {
+			if (cell == this.start) {
+				path.clear();
+				return false;
+			}
+			path.push(cell);
+		}
+		this.partialTarget = to;
+		return true;
+	}
+
+	private int depth(int cell) {
+		int depth = 0;
+		for (; cell != this.start; cell = this.parent.get(cell))
+			depth++;
+		return depth;
+	}
+
+	private void prepare(int cells) {
+		this.parent.ensureCapacity(cells);
+		this.seen.ensureCapacity(cells);
+		if (++this.generation == Integer.MAX_VALUE) {
+			this.seen.clear();
+			this.generation = 1;
+		}
+	}
+}
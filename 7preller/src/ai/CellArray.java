@@ -0,0 +1,87 @@
+package ai;
+
+import java.util.Arrays;
+
+/**
+ * An int for every cell of a Map, kept in pages of PAGESIZE cells that are allocated on the
+ * first write. The searches only write the cells they reach, so the memory they take grows
+ * with the part of the Map they search, not with the Map.
+ *
+ * @author      Patricio Reller <reller@mail.hs-ulm.de>
+ * @version     1.0
+ * @since       1.0
+ */
+public class CellArray {
+	public static final int PAGESHIFT = 10;
+	public static final int PAGESIZE = 1 << PAGESHIFT;
+
+	private static final int PAGEMASK = PAGESIZE - 1;
+
+	private final int initial;
+	// Read for the pages not written yet, so reading needs no test
+	private final int[] blank = new int[PAGESIZE];
+	private int[][] pages = new int[0][];
+	private int pageCount;
+
+	/**
+	 * Public constructor.
+	 *
+	 * @param initial the value of every cell not written yet.
+	 */
+	public CellArray(int initial) {
+		this.initial = initial;
+		Arrays.fill(this.blank, initial);
+	}
+
+	/**
+	 * Makes sure cells 0 to cells-1 can be written. Only the directory of the pages grows, the values are kept.
+	 *
+	 * @param cells the number of cells.
+	 */
+	public void ensureCapacity(int cells) {
+		int pages = (cells + PAGEMASK) >>> PAGESHIFT;
+		int old = this.pages.length;
+		if (pages > old) {
+			this.pages = Arrays.copyOf(this.pages, pages);
+			Arrays.fill(this.pages, old, pages, this.blank);
+		}
+	}
+
+	public int get(int cell) {
+		return this.pages[cell >>> PAGESHIFT][cell & PAGEMASK];
+	}
+
+	public void set(int cell, int value) {
+		int[] page = this.pages[cell >>> PAGESHIFT];
+		if (page == this.blank)
+			page = allocate(cell >>> PAGESHIFT);
+		page[cell & PAGEMASK] = value;
+	}
+
+	/**
+	 * Sets every cell written so far back to the initial value, keeping the pages.
+	 */
+	public void clear() {
+		for (int[] page : this.pages)
+			if (page != this.blank)
+				Arrays.fill(page, this.initial);
+	}
+
+	/**
+	 * Getter for the memory the pages take, roughly.
+	 *
+	 * @return the number of bytes.
+	 */
+	public long getBytes() {
+		return 8L * this.pages.length + (4L * PAGESIZE + 16) * (this.pageCount + 1);
+	}
+
+	private int[] allocate(int index) {
+		int[] page = new int[PAGESIZE];
+		if (this.initial != 0)
+			Arrays.fill(page, this.initial);
+		this.pages[index] = page;
+		this.pageCount++;
+		return page;
+	}
+}
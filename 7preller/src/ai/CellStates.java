@@ -0,0 +1,355 @@
+package ai;
+
+import foundation.Environment;
+import foundation.Map;
+import foundation.MapElement;
+
+/**
+ * The exploration state of every cell of a Map, kept as bitboards: one bit per cell in
+ * arrays of long words, indexed like the Map. Besides the cells a Searcher has stood on,
+ * the boards hold what the vision map knows, the passable cells and all known cells.
+ * <p>
+ * The unvisited cells are the passable cells seen but not yet stood on, the targets of
+ * exploration. The frontier are the unvisited cells with an unknown cell within the
+ * visibility radius, where standing still brings something new in sight; without a
+ * frontier there is nothing left to discover. Both are computed by dilating the unknown
+ * cells radius times to their eight neighbours with shifts of the words: one bit is one row,
+ * the height of the Map in bits is one column. After changes, only the rectangle of cells
+ * around them is computed again, the words of its rows in each of its columns, so the work
+ * does not grow with the Map; the number of frontier cells is kept up to date on the way.
+ *
+ * @author      Patricio Reller <reller@mail.hs-ulm.de>
+ * @version     1.0
+ * @since       1.0
+ */
+public class CellStates {
+	private static final int MARGINROWS = 128;
+	private static final int MAXDIRTY = 64;
+
+	private final int cellCount;
+	private final int width;
+	private final int height;
+	private final int radius;
+	private final long[] visited;
+	private final long[] passable;
+	private final long[] known;
+	private final long[] unvisited;
+	private final long[] frontier;
+	private final long[] notFirstRow;
+	private final long[] notLastRow;
+	private final long[] unknown;
+	private final long[] dilated;
+	private int dirtyFrom;
+	private int dirtyTo;
+	private int dirtyRowFrom;
+	private int dirtyRowTo;
+	private int frontierCount;
+	// The words computed and the words of the frontier written, one range per block of columns
+	private int[] computedFirst;
+	private int[] computedLast;
+	private int[] targetFirst;
+	private int[] targetLast;
+
+	/**
+	 * Public constructor, all cells unknown.
+	 *
+	 * @param width the number of columns of the Map.
+	 * @param height the number of rows of the Map.
+	 * @param radius how far the Searchers see.
+	 */
+	public CellStates(int width, int height, int radius) {
+		this.cellCount = width * height;
+		this.width = width;
+		this.height = height;
+		this.radius = radius;
+		int words = (this.cellCount + 63) >>> 6;
+		this.visited = new long[words];
+		this.passable = new long[words];
+		this.known = new long[words];
+		this.unvisited = new long[words];
+		this.frontier = new long[words];
+		this.unknown = new long[words];
+		this.dilated = new long[words];
+		this.notFirstRow = new long[words];
+		this.notLastRow = new long[words];
+		this.computedFirst = new int[width];
+		this.computedLast = new int[width];
+		this.targetFirst = new int[width];
+		this.targetLast = new int[width];
+		for (int w = 0; w < words; w++) {
+			this.notFirstRow[w] = validBits(w);
+			this.notLastRow[w] = validBits(w);
+		}
+		for (int cell = 0; cell < this.cellCount; cell += height) {
+			this.notFirstRow[cell >>> 6] &= ~(1L << cell);
+			this.notLastRow[(cell + height - 1) >>> 6] &= ~(1L << (cell + height - 1));
+		}
+		clean();
+	}
+
+	/**
+	 * Public constructor for the size of a Map and the default visibility.
+	 *
+	 * @param map the Map.
+	 */
+	public CellStates(Map map) {
+		this(map, Environment.VISIBILITY);
+	}
+
+	/**
+	 * Public constructor for the size of a Map.
+	 *
+	 * @param map the Map.
+	 * @param radius how far the Searchers see.
+	 */
+	public CellStates(Map map, int radius) {
+		this(map.getWidth(), map.getHeight(), radius);
+	}
+
+	/**
+	 * Marks a cell a Searcher has stood on.
+	 *
+	 * @param cell the index of the cell.
+	 */
+	public void markVisited(int cell) {
+		if (!get(this.visited, cell)) {
+			this.visited[cell >>> 6] |= 1L << cell;
+			dirty(cell);
+		}
+	}
+
+	/**
+	 * Takes over what the Map now shows at a cell. The unvisited cells and the frontier follow on the next update.
+	 *
+	 * @param map the vision Map.
+	 * @param cell the index of the cell.
+	 */
+	public void cellChanged(Map map, int cell) {
+		MapElement me = map.getAt(cell);
+		long bit = 1L << cell;
+		int w = cell >>> 6;
+		if (me == MapElement.EMPTY)
+			this.known[w] &= ~bit;
+		else
+			this.known[w] |= bit;
+		if (me == MapElement.LAND || me == MapElement.START || me == MapElement.FINISH)
+			this.passable[w] |= bit;
+		else
+			this.passable[w] &= ~bit;
+		dirty(cell);
+	}
+
+	/**
+	 * Computes the unvisited cells and the frontier again where anything changed since they were last computed:
+	 * the cells changed and the radius around them.
+	 */
+	public void update() {
+		if (this.dirtyFrom <= this.dirtyTo)
+			compute(this.dirtyFrom - this.radius, this.dirtyTo + this.radius, this.dirtyRowFrom - this.radius, this.dirtyRowTo + this.radius);
+	}
+
+	/**
+	 * Computes the unvisited cells and the frontier of the whole Map from the boards.
+	 */
+	public void compute() {
+		compute(0, this.width - 1, 0, this.height - 1);
+	}
+
+	/**
+	 * Computes the unvisited cells and the frontier of a rectangle of cells from the boards. The dilation runs on the
+	 * words of the rectangle and a margin around it: 2 * radius columns, and 2 * radius + MARGINROWS rows in each column,
+	 * further than the words outside, not computed, can reach into the rectangle in radius steps each way. Where the
+	 * rows of the margin cover whole columns, the columns are computed as one block of words.
+	 */
+	private void compute(int fromColumn, int toColumn, int fromRow, int toRow) {
+		fromColumn = Math.max(0, fromColumn);
+		toColumn = Math.min(this.width - 1, toColumn);
+		fromRow = Math.max(0, fromRow);
+		toRow = Math.min(this.height - 1, toRow);
+		int words = this.frontier.length;
+		int wordShift = this.height >>> 6;
+		int bitShift = this.height & 63;
+		int fromComputed = Math.max(0, fromColumn - 2 * this.radius);
+		int toComputed = Math.min(this.width - 1, toColumn + 2 * this.radius);
+		int lowRow = fromRow - 2 * this.radius - MARGINROWS;
+		int highRow = toRow + 2 * this.radius + MARGINROWS;
+		
+		int blocks;
+		if (lowRow <= 0 && highRow >= this.height - 1) {
+			blocks = 1;
+			this.computedFirst[0] = (fromComputed * this.height + lowRow) >> 6;
+			this.computedLast[0] = (toComputed * this.height + highRow) >> 6;
+			this.targetFirst[0] = (fromColumn * this.height) >> 6;
+			this.targetLast[0] = ((toColumn + 1) * this.height - 1) >> 6;
+		} else {
+			blocks = toComputed - fromComputed + 1;
+			for (int b = 0; b < blocks; b++) {
+				int column = fromComputed + b;
+				this.computedFirst[b] = (column * this.height + lowRow) >> 6;
+				this.computedLast[b] = (column * this.height + highRow) >> 6;
+				if (column < fromColumn || column > toColumn) {
+					this.targetFirst[b] = 0;
+					this.targetLast[b] = -1;
+				} else {
+					this.targetFirst[b] = (column * this.height + fromRow) >> 6;
+					this.targetLast[b] = (column * this.height + toRow) >> 6;
+				}
+			}
+		}
+		for (int b = 0; b < blocks; b++) {
+			this.computedFirst[b] = Math.max(0, this.computedFirst[b]);
+			this.computedLast[b] = Math.min(words - 1, this.computedLast[b]);
+		}
+		
+		long[] u = this.unknown;
+		long[] v = this.dilated;
+		for (int b = 0; b < blocks; b++)
+			for (int w = this.computedFirst[b]; w <= this.computedLast[b]; w++) {
+				this.unvisited[w] = this.passable[w] & ~this.visited[w];
+				u[w] = ~this.known[w] & validBits(w);
+			}
+
+		//Up and down one row at a time: one bit within the column, not across its ends
+		for (int step = 0; step < this.radius; step++) {
+			for (int b = 0; b < blocks; b++)
+				for (int w = this.computedFirst[b]; w <= this.computedLast[b]; w++) {
+					long down = (u[w] << 1) | (w > 0 ? u[w - 1] >>> 63 : 0);
+					long up = (u[w] >>> 1) | (w + 1 < words ? u[w + 1] << 63 : 0);
+					v[w] = u[w] | (down & this.notFirstRow[w]) | (up & this.notLastRow[w]);
+				}
+			long[] swap = u;
+			u = v;
+			v = swap;
+		}
+
+		//Left and right one column at a time: a shift by the height, the ends of the Map fall off
+		for (int step = 0; step < this.radius; step++) {
+			for (int b = 0; b < blocks; b++)
+				for (int w = this.computedFirst[b]; w <= this.computedLast[b]; w++)
+					v[w] = (u[w] | shiftedUp(u, w - wordShift, bitShift) | shiftedDown(u, w + wordShift, bitShift)) & validBits(w);
+			long[] swap = u;
+			u = v;
+			v = swap;
+		}
+
+		for (int b = 0; b < blocks; b++)
+			for (int w = this.targetFirst[b]; w <= this.targetLast[b]; w++) {
+				long word = this.unvisited[w] & u[w];
+				this.frontierCount += Long.bitCount(word) - Long.bitCount(this.frontier[w]);
+				this.frontier[w] = word;
+			}
+		clean();
+	}
+
+	public boolean isUnknown(int cell) {
+		return !get(this.known, cell);
+	}
+
+	public boolean isFrontier(int cell) {
+		return get(this.frontier, cell);
+	}
+
+	public boolean isUnvisited(int cell) {
+		return get(this.unvisited, cell);
+	}
+
+	public boolean isVisited(int cell) {
+		return get(this.visited, cell);
+	}
+
+	/**
+	 * Returns the first unvisited cell at or after a cell, to iterate the unvisited cells.
+	 *
+	 * @param from the index to start at.
+	 * @return the index of the unvisited cell, -1 if there is none.
+	 */
+	public int nextUnvisited(int from) {
+		return next(this.unvisited, from);
+	}
+
+	/**
+	 * Returns the first frontier cell at or after a cell, to iterate the frontier.
+	 *
+	 * @param from the index to start at.
+	 * @return the index of the frontier cell, -1 if there is none.
+	 */
+	public int nextFrontier(int from) {
+		return next(this.frontier, from);
+	}
+
+	public boolean hasFrontier() {
+		return this.frontierCount > 0;
+	}
+
+	public int getFrontierCount() {
+		return this.frontierCount;
+	}
+
+	/**
+	 * Returns the unvisited cells as a bitboard, for the searches. Not to be changed.
+	 *
+	 * @return the unvisited cells, bit cell % 64 of word cell / 64 for every cell.
+	 */
+	long[] getUnvisited() {
+		return this.unvisited;
+	}
+
+	// The rectangle of the cells changed since the last computation. Changes far apart are computed one after the other
+	private void dirty(int cell) {
+		int column = cell / this.height;
+		int row = cell - column * this.height;
+		if (this.dirtyFrom <= this.dirtyTo && (Math.max(this.dirtyTo, column) - Math.min(this.dirtyFrom, column) > MAXDIRTY
+				|| Math.max(this.dirtyRowTo, row) - Math.min(this.dirtyRowFrom, row) > MAXDIRTY))
+			update();
+		this.dirtyFrom = Math.min(this.dirtyFrom, column);
+		this.dirtyTo = Math.max(this.dirtyTo, column);
+		this.dirtyRowFrom = Math.min(this.dirtyRowFrom, row);
+		this.dirtyRowTo = Math.max(this.dirtyRowTo, row);
+	}
+
+	private void clean() {
+		this.dirtyFrom = Integer.MAX_VALUE;
+		this.dirtyTo = Integer.MIN_VALUE;
+		this.dirtyRowFrom = Integer.MAX_VALUE;
+		this.dirtyRowTo = Integer.MIN_VALUE;
+	}
+
+	private static boolean get(long[] board, int cell) {
+		return (board[cell >>> 6] & (1L << cell)) != 0;
+	}
+
+	private int next(long[] board, int from) {
+		if (from >= this.cellCount)
+			return -1;
+		int w = from >>> 6;
+		long word = board[w] & (-1L << from);
+		while (word == 0) {
+			if (++w == board.length)
+				return -1;
+			word = board[w];
+		}
+		return (w << 6) + Long.numberOfTrailingZeros(word);
+	}
+
+	// The bits of word w that are cells of the Map
+	private long validBits(int w) {
+		int end = this.cellCount - (w << 6);
+		return end >= 64 ? -1L : (1L << end) - 1;
+	}
+
+	// Word w of the board shifted by a whole number of words and bits towards higher indices, w - words given
+	private static long shiftedUp(long[] board, int from, int bits) {
+		long word = from >= 0 && from < board.length ? board[from] << bits : 0;
+		if (bits != 0 && from - 1 >= 0 && from - 1 < board.length)
+			word |= board[from - 1] >>> (64 - bits);
+		return word;
+	}
+
+	// Word w of the board shifted by a whole number of words and bits towards lower indices, w + words given
+	private static long shiftedDown(long[] board, int from, int bits) {
+		long word = from >= 0 && from < board.length ? board[from] >>> bits : 0;
+		if (bits != 0 && from + 1 >= 0 && from + 1 < board.length)
+			word |= board[from + 1] << (64 - bits);
+		return word;
+	}
+}
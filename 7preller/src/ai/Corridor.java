@@ -0,0 +1,118 @@
+package ai;
+
+import java.util.Arrays;
+
+import foundation.Map;
+
+/**
+ * The cells a search has read, as a sparse bitboard: one long for every tile of 8 x 8 cells
+ * that holds any of them, in an open addressing table keyed by the tile. A corridor takes
+ * memory in proportion to the tiles it touches, not to the Map.
+ *
+ * @author      Patricio Reller <reller@mail.hs-ulm.de>
+ * @version     1.0
+ * @since       1.0
+ */
+public class Corridor {
+	private static final int TILESHIFT = 3;
+	private static final int TILEMASK = (1 << TILESHIFT) - 1;
+	private static final int NOTILE = -1;
+
+	private final int tilesDown;
+	private int[] tiles = new int[16];
+	private long[] bits = new long[16];
+	private int size;
+
+	/**
+	 * Public constructor, for the cells of a Map.
+	 *
+	 * @param map the Map searched.
+	 */
+	public Corridor(Map map) {
+		this.tilesDown = (map.getHeight() + TILEMASK) >> TILESHIFT;
+		Arrays.fill(this.tiles, NOTILE);
+	}
+
+	/**
+	 * Marks a cell and its neighbours.
+	 *
+	 * @param map the Map searched.
+	 * @param cell the index of the cell.
+	 */
+	public void markAround(Map map, int cell) {
+		int column = map.column(cell);
+		int row = map.row(cell);
+		for (int i = column - 1; i <= column + 1; i++)
+			for (int j = row - 1; j <= row + 1; j++)
+				if (map.contains(i, j))
+					mark(i, j);
+	}
+
+	/**
+	 * Marks a cell.
+	 *
+	 * @param column the column of the cell.
+	 * @param row the row of the cell.
+	 */
+	public void mark(int column, int row) {
+		int tile = (column >> TILESHIFT) * this.tilesDown + (row >> TILESHIFT);
+		int slot = slot(tile);
+		if (this.tiles[slot] == NOTILE) {
+			if (2 * (this.size + 1) > this.tiles.length) {
+				grow();
+				slot = slot(tile);
+			}
+			this.tiles[slot] = tile;
+			this.size++;
+		}
+		this.bits[slot] |= bit(column, row);
+	}
+
+	/**
+	 * Returns true if a cell is marked.
+	 *
+	 * @param column the column of the cell.
+	 * @param row the row of the cell.
+	 * @return boolean
+	 */
+	public boolean contains(int column, int row) {
+		int slot = slot((column >> TILESHIFT) * this.tilesDown + (row >> TILESHIFT));
+		return this.tiles[slot] != NOTILE && (this.bits[slot] & bit(column, row)) != 0;
+	}
+
+	/**
+	 * Getter for the memory the corridor takes, roughly.
+	 *
+	 * @return the number of bytes.
+	 */
+	public long getBytes() {
+		return 12L * this.tiles.length + 64;
+	}
+
+	// The slot of a tile, or the empty slot it would go in
+	private int slot(int tile) {
+		int mask = this.tiles.length - 1;
+		int slot = tile * 0x9E3779B9 >>> Integer.numberOfLeadingZeros(mask);
+		while (this.tiles[slot] != NOTILE && this.tiles[slot] != tile)
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	private void grow() {
+		int[] oldTiles = this.tiles;
+		long[] oldBits = this.bits;
+		this.tiles = new int[oldTiles.length * 2];
+		this.bits = new long[oldTiles.length * 2];
+		Arrays.fill(this.tiles, NOTILE);
+		for (int k = 0; k < oldTiles.length; k++)
+			if (oldTiles[k] != NOTILE) {
+				int slot = slot(oldTiles[k]);
+				this.tiles[slot] = oldTiles[k];
+				this.bits[slot] = oldBits[k];
+			}
+	}
+
+	private static long bit(int column, int row) {
+		return 1L << ((column & TILEMASK) << TILESHIFT | (row & TILEMASK));
+	}
+}
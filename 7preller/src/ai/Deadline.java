@@ -0,0 +1,40 @@
+package ai;
+
+/**
+ * Deadlines for the planning of one move, as values of System.nanoTime(). Searches given a
+ * deadline look at the clock every few dozen cells, and stop where they are once it has
+ * passed; they go on from there when asked again.
+ *
+ * @author      Patricio Reller <reller@mail.hs-ulm.de>
+ * @version     1.0
+ * @since       1.0
+ */
+public final class Deadline {
+	/**
+	 * No deadline, the search runs to its end.
+	 */
+	public static final long NONE = Long.MAX_VALUE;
+
+	private Deadline() {
+	}
+
+	/**
+	 * Returns the deadline a time budget from now.
+	 *
+	 * @param nanos the budget in nanoseconds, 0 or less for none.
+	 * @return the deadline, or NONE.
+	 */
+	public static long after(long nanos) {
+		return nanos <= 0 ? NONE : System.nanoTime() + nanos;
+	}
+
+	/**
+	 * Returns true if a deadline has passed.
+	 *
+	 * @param deadline the deadline, or NONE.
+	 * @return boolean
+	 */
+	public static boolean isPassed(long deadline) {
+		return deadline != NONE && System.nanoTime() - deadline >= 0;
+	}
+}
@@ -0,0 +1,286 @@
+package ai;
+
+import java.util.Arrays;
+
+import foundation.Map;
+import foundation.MapElement;
+
+/**
+ * Distances of all cells to one goal, flooded backwards from the goal over the LAND of a Map.
+ * Any number of searchers can walk to the goal by stepping to a neighbour with a smaller distance,
+ * at O(1) per step, instead of searching a Path each.
+ * <p>
+ * When cells of the Map change, the field is repaired instead of flooded again: like LPA*, every
+ * cell keeps besides its distance g a one-step lookahead rhs, and only cells where the two disagree
+ * are queued and settled, so the work is proportional to the part of the field that changes.
+ * Both the flood and the repair can be spread over several moves with a deadline.
+ * <p>
+ * The per-cell data live in {@link CellArray}s, so only the part of the Map the flood reaches takes memory.
+ * 
+ * @author      Patricio Reller <reller@mail.hs-ulm.de>
+ * @version     1.0 
+ * @since       1.0
+ */
+public class DistanceField {
+	public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	private final CellArray distance = new CellArray(0);
+	private final CellArray lookahead = new CellArray(0);
+	private final CellArray seen = new CellArray(0);
+	private int[] queue = new int[64];
+	private int generation = 0;
+	private int cells = 0;
+	private int goal = -1;
+	private boolean valid = false;
+	private boolean flooding = false;
+	private int head;
+	private int tail;
+	private int[] pending = new int[0];
+	private int pendingCount;
+	private int pendingDone;
+	private IndexedHeap inconsistent = new IndexedHeap();
+	private int repairs;
+
+	/**
+	 * Floods the Map from the goal. Only LAND is traversed.
+	 * 
+	 * @param map the Map.
+	 * @param goal the index of the goal cell.
+	 */
+	public void compute(Map map, int goal) {
+		start(map, goal);
+		resume(map, Deadline.NONE);
+	}
+
+	/**
+	 * Starts to flood the Map from the goal, to be done by resume. Until then the distances of the cells already
+	 * reached are known, and stepping down from them leads to the goal.
+	 * 
+	 * @param map the Map.
+	 * @param goal the index of the goal cell.
+	 */
+	public void start(Map map, int goal) {
+		prepare(map.getCellCount());
+		this.goal = goal;
+		this.valid = false;
+		this.flooding = true;
+		this.pendingCount = 0;
+		this.pendingDone = 0;
+		
+		this.head = 0;
+		this.tail = 0;
+		this.queue[this.tail++] = goal;
+		this.seen.set(goal, this.generation);
+		this.distance.set(goal, 0);
+		this.lookahead.set(goal, 0);
+	}
+
+	/**
+	 * Goes on flooding the Map from the goal until it is done or the deadline has passed. The cells changed meanwhile
+	 * are taken into account once it is done, by the repairs.
+	 * 
+	 * @param map the Map.
+	 * @param deadline the deadline, or Deadline.NONE.
+	 * @return true if the field is complete.
+	 */
+	public boolean resume(Map map, long deadline) {
+		if (!this.flooding)
+			return this.valid;
+		
+		int head = this.head, tail = this.tail;
+		int settled = 0;
+		while (head != tail) {
+			if ((++settled & 63) == 0 && Deadline.isPassed(deadline)) {
+				this.head = head;
+				this.tail = tail;
+				return false;
+			}
+			int current = this.queue[head++];
+			
+			int column = map.column(current);
+			int row = map.row(current);
+			int successorDistance = this.distance.get(current) + 1;
+			for (int n = map.neighbours(column, row); n != 0; n &= n - 1) {
+				int k = Integer.numberOfTrailingZeros(n);
+				int successor = current + map.neighbourOffset(k);
+				if (this.seen.get(successor) == this.generation
+						|| map.getAt(column + Map.neighbourColumnOffset(k), row + Map.neighbourRowOffset(k)) != MapElement.LAND)
+					continue;
+				this.seen.set(successor, this.generation);
+				this.distance.set(successor, successorDistance);
+				this.lookahead.set(successor, successorDistance);
+				if (tail == this.queue.length)
+					this.queue = Arrays.copyOf(this.queue, 2 * tail);
+				this.queue[tail++] = successor;
+			}
+		}
+		//The flood may have passed cells before they changed, the repairs look at them again
+		this.flooding = false;
+		this.valid = true;
+		this.queue = new int[64];
+		return true;
+	}
+
+	/**
+	 * Takes note that a cell of the Map has changed. The field is consistent again after the next repair.
+	 * 
+	 * @param map the Map the field was computed on, already changed.
+	 * @param cell the index of the changed cell.
+	 */
+	public void cellChanged(Map map, int cell) {
+		if (this.valid) {
+			updateLookahead(map, cell);
+		} else if (this.flooding) {
+			//Noted while flooding, the pending cells are looked at again by the repairs
+			if (this.pendingCount == this.pending.length)
+				this.pending = Arrays.copyOf(this.pending, Math.max(16, 2 * this.pending.length));
+			this.pending[this.pendingCount++] = cell;
+		}
+	}
+
+	/**
+	 * Settles all cells whose distance is affected by the changes noted since the last repair.
+	 * 
+	 * @param map the Map the field was computed on.
+	 */
+	public void repair(Map map) {
+		repair(map, Deadline.NONE);
+	}
+
+	/**
+	 * Settles the cells whose distance is affected by the changes noted since the last repair, until the deadline has passed.
+	 * The cells changed during the flood are looked at first. The Map only ever shows more LAND, so the distances not yet
+	 * settled are too long, never wrong, and stepping down still leads to the goal.
+	 * 
+	 * @param map the Map the field was computed on.
+	 * @param deadline the deadline, or Deadline.NONE.
+	 * @return true if no cell is left to settle.
+	 */
+	public boolean repair(Map map, long deadline) {
+		this.repairs = 0;
+		while (this.pendingDone < this.pendingCount) {
+			if ((this.pendingDone & 63) == 63 && Deadline.isPassed(deadline))
+				return false;
+			updateLookahead(map, this.pending[this.pendingDone++]);
+		}
+		if (this.pendingCount > 0) {
+			this.pending = new int[0];
+			this.pendingCount = 0;
+			this.pendingDone = 0;
+		}
+		while (!this.inconsistent.isEmpty()) {
+			if ((this.repairs & 63) == 63 && Deadline.isPassed(deadline))
+				return false;
+			int current = this.inconsistent.poll();
+			this.repairs++;
+			if (getG(current) > getRhs(current)) {
+				//Shorter than before: settle it, its neighbours may now be reached through it
+				this.distance.set(current, this.lookahead.get(current));
+			} else {
+				//Longer than before: forget it, and let it and its neighbours look for a new way
+				this.distance.set(current, UNREACHABLE);
+				updateLookahead(map, current);
+			}
+			for (int n = map.neighbours(current); n != 0; n &= n - 1)
+				updateLookahead(map, current + map.neighbourOffset(Integer.numberOfTrailingZeros(n)));
+		}
+		return true;
+	}
+
+	/**
+	 * Getter for the number of cells settled by the last repair.
+	 * 
+	 * @return the number of cells.
+	 */
+	public int getRepairs() {
+		return this.repairs;
+	}
+
+	/**
+	 * Returns the number of steps from a cell to the goal.
+	 * 
+	 * @param cell the cell index.
+	 * @return the distance, or UNREACHABLE.
+	 */
+	public int getDistance(int cell) {
+		if (cell < 0 || cell >= this.cells || this.seen.get(cell) != this.generation)
+			return UNREACHABLE;
+		return this.distance.get(cell);
+	}
+
+	/**
+	 * Getter for the goal the field leads to.
+	 * 
+	 * @return the goal cell index, or -1 if never computed.
+	 */
+	public int getGoal() {
+		return this.goal;
+	}
+
+	/**
+	 * Returns true if the field has been computed. Changes of the Map are taken into account by the next repair.
+	 * 
+	 * @return boolean
+	 */
+	public boolean isValid() {
+		return this.valid;
+	}
+
+	/**
+	 * Returns true if the field has been started but its flood is not done yet.
+	 * 
+	 * @return boolean
+	 */
+	public boolean isFlooding() {
+		return this.flooding;
+	}
+
+	/**
+	 * Recomputes the one-step lookahead of a cell from its neighbours, and queues the cell if it disagrees with its distance.
+	 */
+	private void updateLookahead(Map map, int cell) {
+		if (cell == this.goal)
+			return;
+		int rhs = UNREACHABLE;
+		if (map.getAt(cell) == MapElement.LAND) {
+			for (int n = map.neighbours(cell); n != 0; n &= n - 1) {
+				int g = getG(cell + map.neighbourOffset(Integer.numberOfTrailingZeros(n)));
+				if (g != UNREACHABLE && g + 1 < rhs)
+					rhs = g + 1;
+			}
+		} else if (getG(cell) == UNREACHABLE && !this.inconsistent.contains(cell)) {
+			return; //Nothing to do for cells that neither were nor can be reached
+		}
+		if (this.seen.get(cell) != this.generation) {
+			this.seen.set(cell, this.generation);
+			this.distance.set(cell, UNREACHABLE);
+		}
+		this.lookahead.set(cell, rhs);
+		int g = this.distance.get(cell);
+		if (g != rhs)
+			this.inconsistent.offer(cell, Math.min(g, rhs));
+		else
+			this.inconsistent.remove(cell);
+	}
+
+	private int getG(int cell) {
+		return this.seen.get(cell) == this.generation ? this.distance.get(cell) : UNREACHABLE;
+	}
+
+	private int getRhs(int cell) {
+		return this.seen.get(cell) == this.generation ? this.lookahead.get(cell) : UNREACHABLE;
+	}
+
+	private void prepare(int cells) {
+		this.cells = cells;
+		this.distance.ensureCapacity(cells);
+		this.lookahead.ensureCapacity(cells);
+		this.seen.ensureCapacity(cells);
+		this.inconsistent.ensureCapacity(cells);
+		this.inconsistent.clear();
+		if (++this.generation == Integer.MAX_VALUE) {
+			this.seen.clear();
+			this.generation = 1;
+		}
+	}
+}
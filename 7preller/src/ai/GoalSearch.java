@@ -0,0 +1,89 @@
+package ai;
+
+import foundation.Map;
+
+/**
+ * A search for a shortest Path to a single goal cell. Implemented by {@link AStar},
+ * {@link JumpPointSearch} and {@link HierarchicalSearch}, so Searchers can be given any of them.
+ * 
+ * @author      Patricio Reller <reller@mail.hs-ulm.de>
+ * @version     1.0 
+ * @since       1.0
+ */
+public interface GoalSearch {
+
+	/**
+	 * Creates a goal search by its name: "astar", "jps" or "hpa".
+	 * 
+	 * @param name the name, in any case.
+	 * @return a new goal search.
+	 * @throws IllegalArgumentException if there is no goal search of that name.
+	 */
+	static GoalSearch forName(String name) {
+		switch (name.toLowerCase()) {
+		case "astar":
+			return new AStar();
+		case "jps":
+			return new JumpPointSearch();
+		case "hpa":
+			return new HierarchicalSearch();
+		default:
+			throw new IllegalArgumentException("No goal search " + name + ", choose astar, jps or hpa");
+		}
+	}
+
+	/**
+	 * Finds a shortest Path from start to goal. Only LAND is traversed, the goal itself may be of any kind.
+	 * 
+	 * @param map the Map to search.
+	 * @param start the index of the initial cell.
+	 * @param goal the index of the goal cell.
+	 * @param path the Path to fill, from the first step to the goal. Emptied if the goal is not reachable.
+	 * @return true if the goal is reachable.
+	 */
+	default boolean findPath(Map map, int start, int goal, Path path) {
+		return findPath(map, start, goal, path, Deadline.NONE);
+	}
+
+	/**
+	 * Finds a shortest Path from start to goal, until a deadline. A search stopped by the deadline is given up, and
+	 * returns false as if the goal were not reachable; the caller tells the two apart by the deadline.
+	 * 
+	 * @param map the Map to search.
+	 * @param start the index of the initial cell.
+	 * @param goal the index of the goal cell.
+	 * @param path the Path to fill, from the first step to the goal. Emptied if the goal is not reachable or the search is stopped.
+	 * @param deadline the deadline, or Deadline.NONE.
+	 * @return true if the goal is reachable, and the search got there before the deadline.
+	 */
+	boolean findPath(Map map, int start, int goal, Path path, long deadline);
+
+	/**
+	 * Getter for the number of cells expanded by the last search.
+	 * 
+	 * @return the number of expansions.
+	 */
+	int getExpansions();
+
+	/**
+	 * Takes note that a cell of a Map has changed, for searches that keep data about the Map between searches.
+	 * 
+	 * @param map the Map, already changed.
+	 * @param cell the index of the changed cell.
+	 */
+	default void cellChanged(Map map, int cell) {
+		return;
+	}
+
+	/**
+	 * Marks every cell the last search has read on a Corridor. As long as none of them changes, the same search gives
+	 * the same Path. Searches that cannot tell return false, and their Paths are not cached.
+	 * 
+	 * @param map the Map searched.
+	 * @param corridor the Corridor to mark the cells on.
+	 * @return true if the cells are marked.
+	 */
+	default boolean markCorridor(Map map, Corridor corridor) {
+		return false;
+	}
+}
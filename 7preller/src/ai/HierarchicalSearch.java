@@ -0,0 +1,379 @@
+package ai;
+
+import java.util.Arrays;
+
+import foundation.Map;
+import foundation.MapElement;
+
+/**
+ * Hierarchical Path-finding A Star (HPA*). The Map is cut into square clusters. Where LAND crosses
+ * the border between two clusters, a few transition cells become nodes of an abstract graph, and
+ * the nodes of one cluster are connected by their shortest distances inside it. A search then only
+ * connects start and goal to the nodes of their own clusters, runs A Star over the abstract graph
+ * and refines each abstract edge by a small search inside one cluster.
+ * <p>
+ * The graph is built for one Map. Changes of that Map must be reported through
+ * {@link #cellChanged(Map, int)}; only the clusters around a changed cell are rebuilt, on the next search.
+ * The Paths found are shortest within the abstraction, usually a few percent longer than optimal.
+ * 
+ * @author      Patricio Reller <reller@mail.hs-ulm.de>
+ * @version     1.0 
+ * @since       1.0
+ */
+public class HierarchicalSearch implements GoalSearch {
+	public static final int CLUSTERSIZE = 10;
+	
+	private static final int UNREACHABLE = Integer.MAX_VALUE;
+	private static final int[] NONE = new int[0];
+	
+	private final int clusterSize;
+	private Map map = null;
+	private int clustersDown;
+	private int[][] nodes;
+	private int[][][] crossings;
+	private int[][] distances;
+	private boolean[] dirty;
+	private int[] nodeIndex = new int[0];
+	
+	//Abstract search
+	private final SearchNodes search = new SearchNodes();
+	private int[] goalDistance = NONE;
+	private int expansions;
+	
+	//Searches inside one cluster
+	private int[] localQueue = new int[0];
+	private int[] localParent = new int[0];
+	private int[] localDistance = new int[0];
+	private int[] localSeen = new int[0];
+	private int localGeneration = 0;
+	
+	//Transitions collected while building a cluster
+	private int[] inside = new int[16];
+	private int[] outside = new int[16];
+	private int transitions;
+
+	/**
+	 * Public constructor (default cluster size).
+	 */
+	public HierarchicalSearch() {
+		this(CLUSTERSIZE);
+	}
+
+	/**
+	 * Public constructor.
+	 * 
+	 * @param clusterSize the width and height of a cluster in cells.
+	 */
+	public HierarchicalSearch(int clusterSize) {
+		this.clusterSize = clusterSize;
+	}
+
+	@Override
+	public boolean findPath(Map map, int start, int goal, Path path, long deadline) {
+		path.clear();
+		this.expansions = 0;
+		build(map);
+		this.search.prepare(map.getCellCount());
+		
+		int startCluster = clusterOf(start);
+		int goalCluster = clusterOf(goal);
+		int goalColumn = map.column(goal);
+		int goalRow = map.row(goal);
+		
+		//Distances from the nodes of the goal's cluster to the goal
+		int[] goalNodes = this.nodes[goalCluster];
+		if (this.goalDistance.length < goalNodes.length)
+			this.goalDistance = new int[goalNodes.length];
+		flood(goal, goalCluster, -1);
+		for (int i = 0; i < goalNodes.length; i++)
+			this.goalDistance[i] = localDistanceOf(goalNodes[i]);
+		
+		this.search.offer(start, 0, start, heuristic(start, goalColumn, goalRow));
+		boolean found = false;
+		while (!this.search.isEmpty()) {
+			if ((this.expansions & 63) == 63 && Deadline.isPassed(deadline))
+				break;
+			int current = this.search.poll();
+			if (current == goal) {
+				found = true;
+				break;
+			}
+			this.expansions++;
+			int currentG = this.search.getG(current);
+			
+			if (current == start) {
+				//Connect the start to the nodes of its cluster, and directly to a goal in the same cluster
+				flood(start, startCluster, goal);
+				for (int node : this.nodes[startCluster])
+					relax(node, currentG, localDistanceOf(node), current, goalColumn, goalRow);
+				if (startCluster == goalCluster)
+					relax(goal, currentG, localDistanceOf(goal), current, goalColumn, goalRow);
+			}
+			
+			int index = this.nodeIndex[current];
+			if (index < 0)
+				continue;
+			int cluster = clusterOf(current);
+			int[] clusterNodes = this.nodes[cluster];
+			int count = clusterNodes.length;
+			for (int j = 0; j < count; j++)
+				relax(clusterNodes[j], currentG, this.distances[cluster][index * count + j], current, goalColumn, goalRow);
+			for (int other : this.crossings[cluster][index])
+				relax(other, currentG, 1, current, goalColumn, goalRow);
+			if (cluster == goalCluster)
+				relax(goal, currentG, this.goalDistance[index], current, goalColumn, goalRow);
+		}
+		this.search.clear();
+		if (found)
+			refine(start, goal, path);
+		return found;
+	}
+
+	/**
+	 * Getter for the number of abstract nodes expanded by the last search. The small searches inside
+	 * the clusters of start and goal and the refinement are not counted.
+	 * 
+	 * @return the number of expansions.
+	 */
+	@Override
+	public int getExpansions() {
+		return this.expansions;
+	}
+
+	/**
+	 * Marks the clusters around a changed cell for rebuilding.
+	 */
+	@Override
+	public void cellChanged(Map map, int cell) {
+		if (map != this.map)
+			return;
+		int column = map.column(cell);
+		int row = map.row(cell);
+		for (int i = Math.max(0, column - 1); i <= Math.min(map.getWidth() - 1, column + 1); i++)
+			for (int j = Math.max(0, row - 1); j <= Math.min(map.getHeight() - 1, row + 1); j++)
+				this.dirty[clusterOf(i, j)] = true;
+	}
+
+	/**
+	 * Builds the abstract graph for a new Map, or rebuilds the clusters that changed.
+	 */
+	private void build(Map map) {
+		if (map != this.map) {
+			this.map = map;
+			this.clustersDown = (map.getHeight() + this.clusterSize - 1) / this.clusterSize;
+			int clusters = ((map.getWidth() + this.clusterSize - 1) / this.clusterSize) * this.clustersDown;
+			this.nodes = new int[clusters][];
+			this.crossings = new int[clusters][][];
+			this.distances = new int[clusters][];
+			this.dirty = new boolean[clusters];
+			Arrays.fill(this.nodes, NONE);
+			Arrays.fill(this.dirty, true);
+			if (this.nodeIndex.length < map.getCellCount()) {
+				this.nodeIndex = new int[map.getCellCount()];
+				this.localQueue = new int[map.getCellCount()];
+				this.localParent = new int[map.getCellCount()];
+				this.localDistance = new int[map.getCellCount()];
+				this.localSeen = new int[map.getCellCount()];
+				this.localGeneration = 0;
+			}
+			Arrays.fill(this.nodeIndex, -1);
+		}
+		for (int cluster = 0; cluster < this.dirty.length; cluster++)
+			if (this.dirty[cluster]) {
+				rebuild(cluster);
+				this.dirty[cluster] = false;
+			}
+	}
+
+	/**
+	 * Finds the transitions of a cluster to its neighbours and connects them inside the cluster.
+	 */
+	private void rebuild(int cluster) {
+		for (int node : this.nodes[cluster])
+			this.nodeIndex[node] = -1;
+		
+		int column0 = (cluster / this.clustersDown) * this.clusterSize;
+		int row0 = (cluster % this.clustersDown) * this.clusterSize;
+		int column1 = Math.min(column0 + this.clusterSize, this.map.getWidth()) - 1;
+		int row1 = Math.min(row0 + this.clusterSize, this.map.getHeight()) - 1;
+		
+		//Straight crossings along each side, one or two per run of open border
+		this.transitions = 0;
+		collectRuns(column0, row0, 0, 1, row1 - row0 + 1, -1, 0);
+		collectRuns(column1, row0, 0, 1, row1 - row0 + 1, 1, 0);
+		collectRuns(column0, row0, 1, 0, column1 - column0 + 1, 0, -1);
+		collectRuns(column0, row1, 1, 0, column1 - column0 + 1, 0, 1);
+		
+		//Diagonal crossings that no straight crossing next to them can replace
+		for (int column = column0; column <= column1; column++)
+			for (int row = row0; row <= row1; row++) {
+				if ((column != column0 && column != column1 && row != row0 && row != row1) || !passable(column, row))
+					continue;
+				for (int dx = -1; dx <= 1; dx += 2)
+					for (int dy = -1; dy <= 1; dy += 2) {
+						int otherColumn = column + dx, otherRow = row + dy;
+						if (!passable(otherColumn, otherRow) || clusterOf(otherColumn, otherRow) == cluster)
+							continue;
+						boolean corner = clusterOf(otherColumn, otherRow) != clusterOf(otherColumn, row)
+								&& clusterOf(otherColumn, otherRow) != clusterOf(column, otherRow);
+						if (corner || (!passable(otherColumn, row) && !passable(column, otherRow)))
+							addTransition(this.map.index(column, row), this.map.index(otherColumn, otherRow));
+					}
+			}
+		
+		//One node per inside cell, with all its crossings
+		int count = 0;
+		int[] clusterNodes = new int[this.transitions];
+		for (int t = 0; t < this.transitions; t++)
+			if (this.nodeIndex[this.inside[t]] < 0) {
+				this.nodeIndex[this.inside[t]] = count;
+				clusterNodes[count++] = this.inside[t];
+			}
+		clusterNodes = Arrays.copyOf(clusterNodes, count);
+		int[] crossingCount = new int[count];
+		for (int t = 0; t < this.transitions; t++)
+			crossingCount[this.nodeIndex[this.inside[t]]]++;
+		int[][] clusterCrossings = new int[count][];
+		for (int i = 0; i < count; i++)
+			clusterCrossings[i] = new int[crossingCount[i]];
+		Arrays.fill(crossingCount, 0);
+		for (int t = 0; t < this.transitions; t++) {
+			int i = this.nodeIndex[this.inside[t]];
+			clusterCrossings[i][crossingCount[i]++] = this.outside[t];
+		}
+		
+		int[] clusterDistances = new int[count * count];
+		for (int i = 0; i < count; i++) {
+			flood(clusterNodes[i], cluster, -1);
+			for (int j = 0; j < count; j++)
+				clusterDistances[i * count + j] = localDistanceOf(clusterNodes[j]);
+		}
+		this.nodes[cluster] = clusterNodes;
+		this.crossings[cluster] = clusterCrossings;
+		this.distances[cluster] = clusterDistances;
+	}
+
+	/**
+	 * Walks along one side of a cluster and adds a transition in the middle of every run of cells
+	 * that are open on both sides of the border, and at both ends of long runs.
+	 */
+	private void collectRuns(int column, int row, int stepColumn, int stepRow, int length, int dx, int dy) {
+		if (!inMap(column + dx, row + dy))
+			return;
+		int runStart = -1;
+		for (int k = 0; k <= length; k++) {
+			int c = column + k * stepColumn, r = row + k * stepRow;
+			boolean open = k < length && passable(c, r) && passable(c + dx, r + dy);
+			if (open && runStart < 0)
+				runStart = k;
+			if (!open && runStart >= 0) {
+				int runEnd = k - 1;
+				if (runEnd - runStart + 1 >= 6) {
+					addStraightTransition(column, row, stepColumn, stepRow, runStart, dx, dy);
+					addStraightTransition(column, row, stepColumn, stepRow, runEnd, dx, dy);
+				} else {
+					addStraightTransition(column, row, stepColumn, stepRow, (runStart + runEnd) / 2, dx, dy);
+				}
+				runStart = -1;
+			}
+		}
+	}
+
+	private void addStraightTransition(int column, int row, int stepColumn, int stepRow, int k, int dx, int dy) {
+		int c = column + k * stepColumn, r = row + k * stepRow;
+		addTransition(this.map.index(c, r), this.map.index(c + dx, r + dy));
+	}
+
+	private void addTransition(int from, int to) {
+		if (this.transitions == this.inside.length) {
+			this.inside = Arrays.copyOf(this.inside, this.transitions * 2);
+			this.outside = Arrays.copyOf(this.outside, this.transitions * 2);
+		}
+		this.inside[this.transitions] = from;
+		this.outside[this.transitions++] = to;
+	}
+
+	private void relax(int cell, int currentG, int cost, int from, int goalColumn, int goalRow) {
+		if (cost == UNREACHABLE || this.search.isClosed(cell))
+			return;
+		int successorG = currentG + cost;
+		if (this.search.improves(cell, successorG))
+			this.search.offer(cell, successorG, from, heuristic(cell, goalColumn, goalRow));
+	}
+
+	/**
+	 * Replaces every abstract edge by the cells between its ends, searched inside the cluster of its end.
+	 */
+	private void refine(int start, int goal, Path path) {
+		for (int cell = goal; cell != start; cell = this.search.getParent(cell)) {
+			int from = this.search.getParent(cell);
+			if (Math.max(Math.abs(this.map.column(cell) - this.map.column(from)), Math.abs(this.map.row(cell) - this.map.row(from))) == 1) {
+				path.push(cell);
+				continue;
+			}
+			flood(from, clusterOf(cell), cell);
+			for (int step = cell; step != from; step = this.localParent[step])
+				path.push(step);
+		}
+	}
+
+	/**
+	 * Breadth first search over the LAND of one cluster, from source until target is reached or the cluster is exhausted.
+	 */
+	private void flood(int source, int cluster, int target) {
+		if (++this.localGeneration == Integer.MAX_VALUE) {
+			Arrays.fill(this.localSeen, 0);
+			this.localGeneration = 1;
+		}
+		int column0 = (cluster / this.clustersDown) * this.clusterSize;
+		int row0 = (cluster % this.clustersDown) * this.clusterSize;
+		int column1 = Math.min(column0 + this.clusterSize, this.map.getWidth()) - 1;
+		int row1 = Math.min(row0 + this.clusterSize, this.map.getHeight()) - 1;
+		
+		int head = 0, tail = 0;
+		this.localQueue[tail++] = source;
+		this.localSeen[source] = this.localGeneration;
+		this.localDistance[source] = 0;
+		while (head < tail) {
+			int current = this.localQueue[head++];
+			if (current == target)
+				return;
+			int column = this.map.column(current);
+			int row = this.map.row(current);
+			for (int i = Math.max(column0, column - 1); i <= Math.min(column1, column + 1); i++)
+				for (int j = Math.max(row0, row - 1); j <= Math.min(row1, row + 1); j++) {
+					int successor = this.map.index(i, j);
+					if (this.localSeen[successor] == this.localGeneration || (successor != target && !passable(i, j)))
+						continue;
+					this.localSeen[successor] = this.localGeneration;
+					this.localDistance[successor] = this.localDistance[current] + 1;
+					this.localParent[successor] = current;
+					this.localQueue[tail++] = successor;
+				}
+		}
+	}
+
+	private int localDistanceOf(int cell) {
+		return this.localSeen[cell] == this.localGeneration ? this.localDistance[cell] : UNREACHABLE;
+	}
+
+	private int clusterOf(int cell) {
+		return clusterOf(this.map.column(cell), this.map.row(cell));
+	}
+
+	private int clusterOf(int column, int row) {
+		return (column / this.clusterSize) * this.clustersDown + row / this.clusterSize;
+	}
+
+	private boolean inMap(int column, int row) {
+		return this.map.contains(column, row);
+	}
+
+	private boolean passable(int column, int row) {
+		return inMap(column, row) && this.map.getAt(column, row) == MapElement.LAND;
+	}
+
+	private int heuristic(int cell, int goalColumn, int goalRow) {
+		return Math.max(Math.abs(this.map.column(cell) - goalColumn), Math.abs(this.map.row(cell) - goalRow));
+	}
+}
@@ -0,0 +1,173 @@
+package ai;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of cell indices with a position index per cell, so the key of a
+ * queued cell can be decreased in O(log n) and membership is tested in O(1). The keys
+ * are kept in heap order next to the cells, and the position index in a {@link CellArray},
+ * so only the cells ever queued take memory.
+ * 
+ * @author      Patricio Reller <reller@mail.hs-ulm.de>
+ * @version     1.0 
+ * @since       1.0
+ */
+public class IndexedHeap {
+	private int[] heap = new int[64];
+	private long[] key = new long[64];
+	private final CellArray position = new CellArray(-1);
+	private int size = 0;
+
+	/**
+	 * Makes sure cells 0 to cells-1 can be queued. The cells queued stay queued.
+	 * 
+	 * @param cells the number of cells.
+	 */
+	public void ensureCapacity(int cells) {
+		this.position.ensureCapacity(cells);
+	}
+
+	/**
+	 * Returns true if the heap has no cells.
+	 * 
+	 * @return boolean
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Getter for the number of queued cells.
+	 * 
+	 * @return the size.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns true if the cell is queued.
+	 * 
+	 * @param cell the cell index.
+	 * @return boolean
+	 */
+	public boolean contains(int cell) {
+		return this.position.get(cell) >= 0;
+	}
+
+	/**
+	 * Getter for the key of a queued cell.
+	 * 
+	 * @param cell the cell index.
+	 * @return the key.
+	 */
+	public long getKey(int cell) {
+		return this.key[this.position.get(cell)];
+	}
+
+	/**
+	 * Queues a cell, or changes its key if it is already queued.
+	 * 
+	 * @param cell the cell index.
+	 * @param k the key.
+	 */
+	public void offer(int cell, long k) {
+		int i = this.position.get(cell);
+		if (i >= 0) {
+			long old = this.key[i];
+			if (k < old)
+				siftUp(i, cell, k);
+			else
+				siftDown(i, cell, k);
+			return;
+		}
+		if (this.size == this.heap.length) {
+			this.heap = Arrays.copyOf(this.heap, this.size * 2);
+			this.key = Arrays.copyOf(this.key, this.size * 2);
+		}
+		siftUp(this.size++, cell, k);
+	}
+
+	/**
+	 * Returns the cell with the smallest key without removing it.
+	 * 
+	 * @return the cell index.
+	 */
+	public int peek() {
+		return this.heap[0];
+	}
+
+	/**
+	 * Removes and returns the cell with the smallest key.
+	 * 
+	 * @return the cell index.
+	 */
+	public int poll() {
+		int top = this.heap[0];
+		this.position.set(top, -1);
+		if (--this.size > 0)
+			siftDown(0, this.heap[this.size], this.key[this.size]);
+		return top;
+	}
+
+	/**
+	 * Removes a queued cell.
+	 * 
+	 * @param cell the cell index.
+	 */
+	public void remove(int cell) {
+		int i = this.position.get(cell);
+		if (i < 0)
+			return;
+		this.position.set(cell, -1);
+		if (--this.size > i) {
+			int last = this.heap[this.size];
+			long k = this.key[this.size];
+			siftDown(i, last, k);
+			i = this.position.get(last);
+			siftUp(i, last, k);
+		}
+	}
+
+	/**
+	 * Removes all cells. Costs the number of queued cells, not the capacity.
+	 */
+	public void clear() {
+		for (int i = 0; i < this.size; i++)
+			this.position.set(this.heap[i], -1);
+		this.size = 0;
+	}
+
+	// Puts cell with key k at slot i or above it, moving the cells of larger keys down
+	private void siftUp(int i, int cell, long k) {
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (this.key[parent] <= k)
+				break;
+			move(this.heap[parent], this.key[parent], i);
+			i = parent;
+		}
+		move(cell, k, i);
+	}
+
+	// Puts cell with key k at slot i or below it, moving the cells of smaller keys up
+	private void siftDown(int i, int cell, long k) {
+		int half = this.size >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			if (child + 1 < this.size && this.key[child + 1] < this.key[child])
+				child++;
+			if (k <= this.key[child])
+				break;
+			move(this.heap[child], this.key[child], i);
+			i = child;
+		}
+		move(cell, k, i);
+	}
+
+	private void move(int cell, long k, int i) {
+		this.heap[i] = cell;
+		this.key[i] = k;
+		this.position.set(cell, i);
+	}
+}
@@ -0,0 +1,180 @@
+package ai;
+
+import foundation.Map;
+import foundation.MapElement;
+
+/**
+ * Jump Point Search: A Star on the uniform cost 8-connected grid that only expands the cells
+ * where an optimal Path may have to turn. Straight and diagonal runs over open LAND are skipped
+ * by jumping along them, which removes the many symmetric Paths A Star expands on open maps.
+ * Diagonal moves past WATER corners are allowed, as in the game.
+ * <p>
+ * A jump stops after MAXJUMP cells and queues the cell it got to, as if it had a forced neighbour.
+ * The Path is still a shortest one, and a diagonal run scans no more than MAXJUMP pairs of straight
+ * runs before it is queued. The straight runs it scans are not capped, so they do not stop it on
+ * open LAND.
+ * 
+ * @author      Patricio Reller <reller@mail.hs-ulm.de>
+ * @version     1.0 
+ * @since       1.0
+ */
+public class JumpPointSearch implements GoalSearch {
+
+	public static final int MAXJUMP = 16;
+
+	private final SearchNodes nodes = new SearchNodes();
+	private int expansions;
+
+	private Map map;
+	private int goal;
+
+	@Override
+	public boolean findPath(Map map, int start, int goal, Path path, long deadline) {
+		this.nodes.prepare(map.getCellCount());
+		path.clear();
+		this.expansions = 0;
+		this.map = map;
+		this.goal = goal;
+		
+		int goalColumn = map.column(goal);
+		int goalRow = map.row(goal);
+		this.nodes.offer(start, 0, start, distance(map.column(start), map.row(start), goalColumn, goalRow));
+		
+		boolean found = false;
+		while (!this.nodes.isEmpty()) {
+			if ((this.expansions & 63) == 63 && Deadline.isPassed(deadline))
+				break;
+			int current = this.nodes.poll();
+			if (current == goal) {
+				found = true;
+				break;
+			}
+			this.expansions++;
+			
+			int column = map.column(current);
+			int row = map.row(current);
+			if (current == start) {
+				for (int dx = -1; dx <= 1; dx++)
+					for (int dy = -1; dy <= 1; dy++)
+						if (dx != 0 || dy != 0)
+							jumpFrom(current, column, row, dx, dy, goalColumn, goalRow);
+				continue;
+			}
+			
+			//Only the natural and the forced neighbours, seen in the direction we came from
+			int from = this.nodes.getParent(current);
+			int dx = Integer.signum(column - map.column(from));
+			int dy = Integer.signum(row - map.row(from));
+			if (dx != 0 && dy != 0) {
+				jumpFrom(current, column, row, dx, 0, goalColumn, goalRow);
+				jumpFrom(current, column, row, 0, dy, goalColumn, goalRow);
+				jumpFrom(current, column, row, dx, dy, goalColumn, goalRow);
+				if (!passable(column - dx, row))
+					jumpFrom(current, column, row, -dx, dy, goalColumn, goalRow);
+				if (!passable(column, row - dy))
+					jumpFrom(current, column, row, dx, -dy, goalColumn, goalRow);
+			} else if (dx != 0) {
+				jumpFrom(current, column, row, dx, 0, goalColumn, goalRow);
+				if (!passable(column, row + 1))
+					jumpFrom(current, column, row, dx, 1, goalColumn, goalRow);
+				if (!passable(column, row - 1))
+					jumpFrom(current, column, row, dx, -1, goalColumn, goalRow);
+			} else {
+				jumpFrom(current, column, row, 0, dy, goalColumn, goalRow);
+				if (!passable(column + 1, row))
+					jumpFrom(current, column, row, 1, dy, goalColumn, goalRow);
+				if (!passable(column - 1, row))
+					jumpFrom(current, column, row, -1, dy, goalColumn, goalRow);
+			}
+		}
+		this.nodes.clear();
+		if (found)
+			fill(map, start, goal, path);
+		this.map = null;
+		return found;
+	}
+
+	@Override
+	public int getExpansions() {
+		return this.expansions;
+	}
+
+	/**
+	 * Jumps from a cell in one direction and queues the jump point found, if any.
+	 */
+	private void jumpFrom(int current, int column, int row, int dx, int dy, int goalColumn, int goalRow) {
+		int jumpPoint = jump(column, row, dx, dy, true);
+		if (jumpPoint < 0 || this.nodes.isClosed(jumpPoint))
+			return;
+		int jumpColumn = this.map.column(jumpPoint);
+		int jumpRow = this.map.row(jumpPoint);
+		int successorG = this.nodes.getG(current) + distance(column, row, jumpColumn, jumpRow);
+		if (this.nodes.improves(jumpPoint, successorG))
+			this.nodes.offer(jumpPoint, successorG, current, distance(jumpColumn, jumpRow, goalColumn, goalRow));
+	}
+
+	/**
+	 * Walks from a cell in one direction until it reaches the goal, a cell with a forced neighbour, an obstacle, or MAXJUMP cells.
+	 * The straight probes of a diagonal run are not capped: a cell they reach after MAXJUMP cells is no jump point, so the
+	 * diagonal run goes on over open LAND, and what they find further on still stops it.
+	 * 
+	 * @param capped true if the jump stops after MAXJUMP cells, false for the straight probes of a diagonal run.
+	 * @return the index of the jump point, or -1 if there is none in this direction.
+	 */
+	private int jump(int column, int row, int dx, int dy, boolean capped) {
+		for (int steps = 1; ; steps++) {
+			column += dx;
+			row += dy;
+			if (!passable(column, row))
+				return -1;
+			int cell = this.map.index(column, row);
+			if (cell == this.goal)
+				return cell;
+			if (capped && steps == MAXJUMP)
+				return cell;
+			if (dx != 0 && dy != 0) {
+				if ((!passable(column - dx, row) && passable(column - dx, row + dy))
+						|| (!passable(column, row - dy) && passable(column + dx, row - dy)))
+					return cell;
+				//A diagonal run stops where a straight run from it would find something
+				if (jump(column, row, dx, 0, false) >= 0 || jump(column, row, 0, dy, false) >= 0)
+					return cell;
+			} else if (dx != 0) {
+				if ((!passable(column, row + 1) && passable(column + dx, row + 1))
+						|| (!passable(column, row - 1) && passable(column + dx, row - 1)))
+					return cell;
+			} else {
+				if ((!passable(column + 1, row) && passable(column + 1, row + dy))
+						|| (!passable(column - 1, row) && passable(column - 1, row + dy)))
+					return cell;
+			}
+		}
+	}
+
+	private boolean passable(int column, int row) {
+		if (column < 0 || column >= this.map.getWidth() || row < 0 || row >= this.map.getHeight())
+			return false;
+		return this.map.getAt(column, row) == MapElement.LAND || this.map.index(column, row) == this.goal;
+	}
+
+	/**
+	 * Fills the Path with every cell between the jump points, not only the jump points themselves.
+	 */
+	private void fill(Map map, int start, int goal, Path path) {
+		for (int cell = goal; cell != start; cell = this.nodes.getParent(cell)) {
+			int from = this.nodes.getParent(cell);
+			int column = map.column(cell), row = map.row(cell);
+			int dx = Integer.signum(map.column(from) - column);
+			int dy = Integer.signum(map.row(from) - row);
+			for (int step = cell; step != from; step = map.index(column, row)) {
+				path.push(step);
+				column += dx;
+				row += dy;
+			}
+		}
+	}
+
+	private static int distance(int column, int row, int otherColumn, int otherRow) {
+		return Math.max(Math.abs(column - otherColumn), Math.abs(row - otherRow));
+	}
+}
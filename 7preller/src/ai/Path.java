@@ -1,68 +1,121 @@
 package ai;
 
-import java.util.Stack;
-
-import foundation.Position;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
 
 /**
+ * The cells still to walk, as Map indices in an int array. The array is kept from the
+ * last cell to the next one, so the searches fill it walking back from the goal through
+ * their parent arrays and no reversal is needed; the cursor is the number of cells left.
+ * The array is reused when the Path is filled again, and only grows.
+ *
  * @author      Patricio Reller <reller@mail.hs-ulm.de>
- * @version     1.0 
+ * @version     1.0
  * @since       1.0
  */
 public class Path {
-	private Stack<Position> path;
-	
+	private int[] cells;
+	private int remaining;
+
 	/**
 	 * Public Constructor (default).
 	 */
 	public Path(){
-		this.path = new Stack<Position>();
-		return;
+		this.cells = new int[16];
+		this.remaining = 0;
 	}
-	
+
 	/**
-	 * Returns true if the current Path has no Positions.
-	 * 
+	 * Returns true if the current Path has no cells left.
+	 *
 	 * @return boolean
 	 */
-	public boolean isEmpty(){	
-		return this.path.isEmpty();
+	public boolean isEmpty(){
+		return this.remaining == 0;
 	}
 
 	/**
-	 * Returns the next Position in the Path. Also removes it from the current Path.
-	 * 
-	 * @return Position the Position
+	 * Getter for the number of cells left to walk.
+	 *
+	 * @return the remaining length.
 	 */
-	public Position pop() {
-		return this.path.pop();
+	public int remaining() {
+		return this.remaining;
 	}
 
 	/**
-	 * Adds a new element to the head (next Position) of the current Path.
-	 * 
-	 * @param position the Position
+	 * Returns the next cell of the Path.
+	 *
+	 * @return the cell index.
 	 */
-	public void push(Position position) {
-		this.path.push(position);
+	public int peek() {
+		if (this.remaining == 0)
+			throw new NoSuchElementException("Path is empty");
+		return this.cells[this.remaining - 1];
 	}
 
 	/**
-	 * Returns the current next Position of the Path.
-	 * 
-	 * @return Position the Position.
+	 * Returns a cell further along the Path.
+	 *
+	 * @param steps the number of steps after the next cell, 0 for the next cell.
+	 * @return the cell index.
 	 */
-	public Position peek() {
-		return this.path.peek();
+	public int get(int steps) {
+		if (steps < 0 || steps >= this.remaining)
+			throw new IndexOutOfBoundsException("Step " + steps + " of a Path of " + this.remaining);
+		return this.cells[this.remaining - 1 - steps];
 	}
-	
+
 	/**
-	 * Getter for the current Path Stack.
-	 * 
-	 * @return the Path Stack.
+	 * Moves on past the next cell of the Path.
 	 */
-	public Stack<Position> getStack() { //TODO DELETE
-		return this.path;
+	public void advance() {
+		if (this.remaining == 0)
+			throw new NoSuchElementException("Path is empty");
+		this.remaining--;
 	}
-	
+
+	/**
+	 * Adds a new cell in front of the next cell of the Path.
+	 *
+	 * @param cell the cell index.
+	 */
+	public void push(int cell) {
+		if (this.remaining == this.cells.length)
+			this.cells = Arrays.copyOf(this.cells, 2 * this.cells.length);
+		this.cells[this.remaining++] = cell;
+	}
+
+	/**
+	 * Fills the Path from a search's parent array, with every cell from the one after start up to goal.
+	 *
+	 * @param parent the parent of every cell reached by the search.
+	 * @param start the index of the initial cell.
+	 * @param goal the index of the last cell.
+	 */
+	public void fill(int[] parent, int start, int goal) {
+		clear();
+		for (int cell = goal; cell != start; cell = parent[cell])
+			push(cell);
+	}
+
+	/**
+	 * Makes this Path a copy of another one.
+	 *
+	 * @param other the Path to copy.
+	 */
+	public void copy(Path other) {
+		if (this.cells.length < other.remaining)
+			this.cells = new int[other.remaining];
+		System.arraycopy(other.cells, 0, this.cells, 0, other.remaining);
+		this.remaining = other.remaining;
+	}
+
+	/**
+	 * Removes all cells of the current Path.
+	 */
+	public void clear() {
+		this.remaining = 0;
+	}
+
 }
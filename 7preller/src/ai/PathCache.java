@@ -0,0 +1,295 @@
+package ai;
+
+import foundation.Map;
+
+/**
+ * The Paths found by the searches of one AI, kept for the next time the same search is
+ * asked for. A Path is keyed by its start cell and goal cell, the nearest unvisited cell
+ * having a key of its own, and stored with its {@link Corridor}: every cell the search
+ * read. When the vision map changes a cell, the Paths whose corridor holds it are
+ * dropped; the others are still what the search would find. A Path to the nearest
+ * unvisited cell is only good while its last cell is still unvisited.
+ * <p>
+ * The cache is bounded by the bytes its Paths and corridors take and by the number of Paths,
+ * so a changed cell is looked up in a bounded number of corridors; the least recently used
+ * are dropped first. Searches that expanded more than MAXEXPANSIONS cells are not kept, their
+ * corridors would take longer to mark than the search is worth in a move. The entries are found by their long key in an open addressing table,
+ * and kept in order of use in a list through the entries themselves, so nothing is boxed.
+ *
+ * @author      Patricio Reller <reller@mail.hs-ulm.de>
+ * @version     1.0
+ * @since       1.0
+ */
+public class PathCache {
+
+	public static final long DEFAULTMAXBYTES = 4L << 20;
+	public static final int MAXENTRIES = 64;
+	public static final int MAXEXPANSIONS = 4096;
+
+	private static final int NEARESTUNVISITED = -1;
+
+	private final long maxBytes;
+	private long bytes;
+	private Entry[] table = new Entry[16];
+	private int size;
+	// The most recently used entry, and through the list the least recently used one
+	private Entry newest;
+	private Entry oldest;
+	private long hits;
+	private long misses;
+	private long invalidations;
+
+	/**
+	 * Public constructor (default), for DEFAULTMAXBYTES.
+	 */
+	public PathCache() {
+		this(DEFAULTMAXBYTES);
+	}
+
+	/**
+	 * Public constructor.
+	 *
+	 * @param maxBytes the number of bytes the Paths and their corridors may take.
+	 */
+	public PathCache(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Copies the cached Path from start to goal, if there is one.
+	 *
+	 * @param start the index of the initial cell.
+	 * @param goal the index of the goal cell.
+	 * @param path the Path to fill.
+	 * @return true if the Path was cached.
+	 */
+	public boolean getPath(int start, int goal, Path path) {
+		Entry entry = get(key(start, goal));
+		if (entry == null) {
+			this.misses++;
+			return false;
+		}
+		this.hits++;
+		path.copy(entry.path);
+		return true;
+	}
+
+	/**
+	 * Copies the cached Path from start to the nearest unvisited cell, if there is one and its last cell is still unvisited.
+	 *
+	 * @param start the index of the initial cell.
+	 * @param cellStates the exploration state of the cells.
+	 * @param path the Path to fill.
+	 * @return true if the Path was cached.
+	 */
+	public boolean getPathToNearestUnvisited(int start, CellStates cellStates, Path path) {
+		Entry entry = get(key(start, NEARESTUNVISITED));
+		if (entry != null && !cellStates.isUnvisited(entry.target)) {
+			remove(entry);
+			this.invalidations++;
+			entry = null;
+		}
+		if (entry == null) {
+			this.misses++;
+			return false;
+		}
+		this.hits++;
+		path.copy(entry.path);
+		return true;
+	}
+
+	/**
+	 * Keeps the Path the goal search has just found from start to goal. Not kept if the search cannot tell the cells it read,
+	 * or expanded more than MAXEXPANSIONS.
+	 *
+	 * @param map the Map searched.
+	 * @param start the index of the initial cell.
+	 * @param goal the index of the goal cell.
+	 * @param path the Path found.
+	 * @param search the goal search that found it.
+	 */
+	public void putPath(Map map, int start, int goal, Path path, GoalSearch search) {
+		if (path.isEmpty() || search.getExpansions() > MAXEXPANSIONS)
+			return;
+		Corridor corridor = new Corridor(map);
+		if (search.markCorridor(map, corridor))
+			put(key(start, goal), corridor, path);
+	}
+
+	/**
+	 * Keeps the Path the breadth first search has just found from start to the nearest unvisited cell. Not kept if the search
+	 * went on after a suspension, or expanded more than MAXEXPANSIONS.
+	 *
+	 * @param map the Map searched.
+	 * @param start the index of the initial cell.
+	 * @param path the Path found.
+	 * @param search the breadth first search that found it.
+	 */
+	public void putPathToNearestUnvisited(Map map, int start, Path path, BreadthFirstSearch search) {
+		if (path.isEmpty() || search.getExpansions() > MAXEXPANSIONS)
+			return;
+		Corridor corridor = new Corridor(map);
+		if (search.markCorridor(map, corridor))
+			put(key(start, NEARESTUNVISITED), corridor, path);
+	}
+
+	/**
+	 * Drops the Paths whose search has read a cell the vision Map has changed.
+	 *
+	 * @param map the vision Map.
+	 * @param cell the index of the cell.
+	 */
+	public void cellChanged(Map map, int cell) {
+		if (this.size == 0)
+			return;
+		int column = map.column(cell);
+		int row = map.row(cell);
+		for (Entry entry = this.newest; entry != null;) {
+			Entry older = entry.older;
+			if (entry.corridor.contains(column, row)) {
+				remove(entry);
+				this.invalidations++;
+			}
+			entry = older;
+		}
+	}
+
+	public void clear() {
+		while (this.oldest != null)
+			remove(this.oldest);
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public long getBytes() {
+		return this.bytes;
+	}
+
+	public long getMaxBytes() {
+		return this.maxBytes;
+	}
+
+	public long getHits() {
+		return this.hits;
+	}
+
+	public long getMisses() {
+		return this.misses;
+	}
+
+	public long getInvalidations() {
+		return this.invalidations;
+	}
+
+	private void put(long key, Corridor corridor, Path path) {
+		Entry entry = new Entry(key, corridor, path);
+		Entry old = get(key);
+		if (old != null)
+			remove(old);
+		if (entry.bytes > this.maxBytes)
+			return;
+		// the least recently used first
+		while (this.bytes + entry.bytes > this.maxBytes || this.size == MAXENTRIES)
+			remove(this.oldest);
+		if (2 * (this.size + 1) > this.table.length)
+			grow();
+		this.table[slot(key)] = entry;
+		this.size++;
+		this.bytes += entry.bytes;
+		link(entry);
+	}
+
+	// The entry of a key, made the most recently used
+	private Entry get(long key) {
+		Entry entry = this.table[slot(key)];
+		if (entry == null)
+			return null;
+		unlink(entry);
+		link(entry);
+		return entry;
+	}
+
+	private void remove(Entry entry) {
+		unlink(entry);
+		this.size--;
+		this.bytes -= entry.bytes;
+		// shift the entries after it in its run back, so no probe stops early
+		int mask = this.table.length - 1;
+		int hole = slot(entry.key);
+		this.table[hole] = null;
+		for (int k = (hole + 1) & mask; this.table[k] != null; k = (k + 1) & mask) {
+			int home = home(this.table[k].key);
+			if (((k - home) & mask) >= ((k - hole) & mask)) {
+				this.table[hole] = this.table[k];
+				this.table[k] = null;
+				hole = k;
+			}
+		}
+	}
+
+	// The slot of a key, or the empty slot it would go in
+	private int slot(long key) {
+		int mask = this.table.length - 1;
+		int slot = home(key);
+		while (this.table[slot] != null && this.table[slot].key != key)
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	private int home(long key) {
+		return (int) (key * 0x9E3779B97F4A7C15L >>> Long.numberOfLeadingZeros(this.table.length - 1));
+	}
+
+	private void grow() {
+		Entry[] old = this.table;
+		this.table = new Entry[old.length * 2];
+		for (Entry entry : old)
+			if (entry != null)
+				this.table[slot(entry.key)] = entry;
+	}
+
+	private void link(Entry entry) {
+		entry.older = this.newest;
+		entry.newer = null;
+		if (this.newest != null)
+			this.newest.newer = entry;
+		else
+			this.oldest = entry;
+		this.newest = entry;
+	}
+
+	private void unlink(Entry entry) {
+		if (entry.newer != null)
+			entry.newer.older = entry.older;
+		else
+			this.newest = entry.older;
+		if (entry.older != null)
+			entry.older.newer = entry.newer;
+		else
+			this.oldest = entry.newer;
+	}
+
+	private static long key(int start, int goal) {
+		return (long) start << 32 | (goal & 0xffffffffL);
+	}
+
+	private static class Entry {
+		private final long key;
+		private final Path path = new Path();
+		private final Corridor corridor;
+		private final int target;
+		private final long bytes;
+		private Entry newer;
+		private Entry older;
+
+		Entry(long key, Corridor corridor, Path path) {
+			this.key = key;
+			this.corridor = corridor;
+			this.path.copy(path);
+			this.target = path.get(path.remaining() - 1);
+			this.bytes = corridor.getBytes() + 4L * path.remaining() + 96;
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package ai;
+
+import java.util.Arrays;
+
+/**
+ * The cells of a best-first search over flat cell indices: for each one the cost g of the best
+ * way found to it, the cell that way comes from and whether it is closed, and the open cells
+ * ordered by f. The per-cell data are kept between searches in pages of PAGESIZE cells, the
+ * four ints of a cell next to each other, allocated on the first write like a {@link CellArray},
+ * so only the cells ever reached take memory. A generation stamp tells which entries belong to
+ * the current search, so nothing has to be cleared or reallocated. The cells reached are also
+ * listed, for the corridor of the search.
+ * <p>
+ * Shared by {@link AStar}, {@link JumpPointSearch} and {@link HierarchicalSearch}.
+ *
+ * @author      Patricio Reller <reller@mail.hs-ulm.de>
+ * @version     1.0
+ * @since       1.0
+ */
+class SearchNodes {
+	private static final int PAGESHIFT = 8;
+	private static final int PAGEMASK = (1 << PAGESHIFT) - 1;
+	// The ints of a cell in its page: g, parent, seen and closed
+	private static final int G = 0;
+	private static final int PARENT = 1;
+	private static final int SEEN = 2;
+	private static final int CLOSED = 3;
+	private static final int[] NOPAGE = new int[4 << PAGESHIFT];
+
+	private int[][] pages = new int[0][];
+	private int[] reached = new int[64];
+	private int reachedCount;
+	private int generation = 0;
+	private final IndexedHeap open = new IndexedHeap();
+
+	/**
+	 * Starts a new search, on a Map of the given number of cells.
+	 *
+	 * @param cells the number of cells.
+	 */
+	void prepare(int cells) {
+		int pageCount = (cells + PAGEMASK) >>> PAGESHIFT;
+		if (this.pages.length < pageCount) {
+			int old = this.pages.length;
+			this.pages = Arrays.copyOf(this.pages, pageCount);
+			Arrays.fill(this.pages, old, pageCount, NOPAGE);
+		}
+		this.open.ensureCapacity(cells);
+		this.open.clear();
+		this.reachedCount = 0;
+		if (++this.generation == Integer.MAX_VALUE) {
+			for (int[] page : this.pages)
+				if (page != NOPAGE)
+					Arrays.fill(page, 0);
+			this.generation = 1;
+		}
+	}
+
+	/**
+	 * Returns true if cost is the cheapest way to the cell found so far.
+	 *
+	 * @param cell the index of the cell.
+	 * @param cost the cost of the way to it.
+	 * @return boolean
+	 */
+	boolean improves(int cell, int cost) {
+		int[] page = this.pages[cell >>> PAGESHIFT];
+		int i = (cell & PAGEMASK) << 2;
+		return page[i + SEEN] != this.generation || cost < page[i + G];
+	}
+
+	/**
+	 * Takes note of the way to a cell and queues it, or decreases its key if it is queued already.
+	 *
+	 * @param cell the index of the cell.
+	 * @param cost the cost g of the way to it.
+	 * @param from the index of the cell the way comes from.
+	 * @param h the heuristic distance from the cell to the goal.
+	 */
+	void offer(int cell, int cost, int from, int h) {
+		int[] page = writable(cell);
+		int i = (cell & PAGEMASK) << 2;
+		if (page[i + SEEN] != this.generation) {
+			if (this.reachedCount == this.reached.length)
+				this.reached = Arrays.copyOf(this.reached, 2 * this.reachedCount);
+			this.reached[this.reachedCount++] = cell;
+			page[i + SEEN] = this.generation;
+		}
+		page[i + G] = cost;
+		page[i + PARENT] = from;
+		this.open.offer(cell, key(cost, h));
+	}
+
+	boolean isEmpty() {
+		return this.open.isEmpty();
+	}
+
+	/**
+	 * Takes the open cell of the lowest f off the queue, and closes it.
+	 *
+	 * @return the index of the cell.
+	 */
+	int poll() {
+		int cell = this.open.poll();
+		writable(cell)[((cell & PAGEMASK) << 2) + CLOSED] = this.generation;
+		return cell;
+	}
+
+	/**
+	 * Ends the search, the cells left open are dropped.
+	 */
+	void clear() {
+		this.open.clear();
+	}
+
+	boolean isClosed(int cell) {
+		return this.pages[cell >>> PAGESHIFT][((cell & PAGEMASK) << 2) + CLOSED] == this.generation;
+	}
+
+	int getG(int cell) {
+		return this.pages[cell >>> PAGESHIFT][((cell & PAGEMASK) << 2) + G];
+	}
+
+	int getParent(int cell) {
+		return this.pages[cell >>> PAGESHIFT][((cell & PAGEMASK) << 2) + PARENT];
+	}
+
+	/**
+	 * Fills a Path by following the parents back from goal to start. The goal does not have to be queued.
+	 *
+	 * @param path the Path to fill.
+	 * @param start the index of the initial cell.
+	 * @param goal the index of the goal cell.
+	 * @param from the index of the cell the goal is reached from.
+	 */
+	void fill(Path path, int start, int goal, int from) {
+		path.clear();
+		path.push(goal);
+		for (int cell = from; cell != start; cell = getParent(cell))
+			path.push(cell);
+	}
+
+	int getReachedCount() {
+		return this.reachedCount;
+	}
+
+	int getReached(int i) {
+		return this.reached[i];
+	}
+
+	// The page of a cell, allocated if it is not yet
+	private int[] writable(int cell) {
+		int[] page = this.pages[cell >>> PAGESHIFT];
+		if (page == NOPAGE) {
+			page = new int[4 << PAGESHIFT];
+			this.pages[cell >>> PAGESHIFT] = page;
+		}
+		return page;
+	}
+
+	/**
+	 * Orders by f, and among equal f prefers the cell closer to the goal.
+	 */
+	private static long key(int g, int h) {
+		return ((long) (g + h) << 32) | h;
+	}
+}
@@ -2,15 +2,9 @@ package ai;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.PriorityQueue;
-import java.util.Queue;
-import java.util.Stack;
 
 import foundation.Direction;
-import foundation.Environment;
 import foundation.Map;
 import foundation.MapElement;
 import foundation.Position;
@@ -24,7 +18,13 @@ public class Searcher {
 	private int id;
 	private Position currentPosition;
 	private Path currentPath;
+	private Path plannedPath = new Path(); //Filled by a goal search, taken over only if the goal is reachable
+	private int pathGoal = -1; //The goal cell the current Path leads to, -1 if it is not a Path to a goal
+	private boolean partialPath; //The current Path only leads as far as a suspended BFS has got
 	private List<Direction> directionsPriority;
+	private GoalSearch goalSearch;
+	private BreadthFirstSearch breadthFirstSearch;
+	private PathCache pathCache;
 
 	/**
 	 * Public constructor. Requieres the id of the Searcher and its initial Position.
@@ -33,9 +33,37 @@ public class Searcher {
 	 * @param start the initial Position.
 	 */
 	public Searcher(int id, Position start) {
+		this(id, start, new AStar(), new BreadthFirstSearch());
+	}
+
+	/**
+	 * Public constructor. Searchers of one AI plan one after another, so they can share the search arrays.
+	 * 
+	 * @param id the id.
+	 * @param start the initial Position.
+	 * @param goalSearch the search for Paths to a goal, A Star, Jump Point Search or HPA*.
+	 * @param breadthFirstSearch the BFS to plan with.
+	 */
+	public Searcher(int id, Position start, GoalSearch goalSearch, BreadthFirstSearch breadthFirstSearch) {
+		this(id, start, goalSearch, breadthFirstSearch, null);
+	}
+
+	/**
+	 * Public constructor. Searchers of one AI plan on the same vision Map, so they can also share the Paths found.
+	 * 
+	 * @param id the id.
+	 * @param start the initial Position.
+	 * @param goalSearch the search for Paths to a goal, A Star, Jump Point Search or HPA*.
+	 * @param breadthFirstSearch the BFS to plan with.
+	 * @param pathCache the Paths found before, null to search every time.
+	 */
+	public Searcher(int id, Position start, GoalSearch goalSearch, BreadthFirstSearch breadthFirstSearch, PathCache pathCache) {
 		this.id = id;
+		this.pathCache = pathCache;
 		this.currentPosition = start;
 		this.currentPath = new Path();
+		this.goalSearch = goalSearch;
+		this.breadthFirstSearch = breadthFirstSearch;
 		this.directionsPriority = new ArrayList<Direction>();
 		
 		Direction N = Direction.NORTH;
@@ -87,40 +115,48 @@ public class Searcher {
 	}
 
 	/**
-	 * Returns a List of all the cells that are around the current Searcher. Guarantees values that are inside of the Map.
+	 * Returns true if the current searcher currently has an assigned Path.
 	 * 
-	 * @return cellsAround the list of cells
+	 * @return boolean
 	 */
-	public List<Position> getCellsAround() {
-		ArrayList<Position> list = new ArrayList<Position>();
-		
-		for (int i = 0; i <= Environment.VISIBILITY * 2 ; i++) {
-			for (int j = 0; j <= Environment.VISIBILITY * 2; j++) {
-				Position pos = new Position(this.currentPosition.getColumn() + i - 1, this.currentPosition.getRow() + j - 1);
-				if (pos.getColumn() >= 0 && pos.getColumn() <= 99 && pos.getRow() >= 0 && pos.getRow() <= 99)
-					list.add(pos);
-			}
-		}
-		list.remove(this.currentPosition);
-		return list;
+	public boolean hasPathAssigned() {
+		return !this.currentPath.isEmpty();
 	}
-	
+
 	/**
-	 * Returns true if the current searcher currently has an assigned Path.
+	 * Drops the current Searcher's Path.
+	 */
+	public void clearPath() {
+		this.currentPath.clear();
+		this.pathGoal = -1;
+		this.partialPath = false;
+	}
+
+	/**
+	 * Returns true if the current Path only leads as far as a suspended BFS has got, not to an unvisited cell.
 	 * 
 	 * @return boolean
 	 */
-	public boolean hasPathAssigned() {
-		return !this.currentPath.isEmpty();
+	public boolean hasPartialPath() {
+		return this.partialPath;
 	}
 
 	/**
-	 * Returns the next position in the current Searcher's Path. It also removes it from its Path.
+	 * Returns true if the current Searcher has a Path left that was planned to the goal.
 	 * 
-	 * @return Position the next Position.
+	 * @param map the Map the Path was searched on.
+	 * @param goal the Goal Position.
+	 * @return boolean
 	 */
-	public Position popNextPathPosition() {
-		return this.currentPath.pop();
+	public boolean hasPathTo(Map map, Position goal) {
+		return !this.currentPath.isEmpty() && this.pathGoal == map.index(goal);
+	}
+
+	/**
+	 * Moves the current Searcher's Path on past its next Position.
+	 */
+	public void advancePath() {
+		this.currentPath.advance();
 	}
 
 	/**
@@ -133,78 +169,13 @@ public class Searcher {
 	}
 
 	/**
-	 * Implementation of A Star Algorithm for shortest path to Position goal. Does not use fog of war for greedy traversing.
+	 * Shortest path to Position goal, by the goal search given on construction. Does not use fog of war for greedy traversing.
 	 * 
 	 * @param goal the Goal Position.
 	 * @param visionMap the current visible Map.
 	 */
 	public void findShortestPathToGoalNonGreedy(Position goal, Map visionMap) {
-		//initialize unvisited, visited, and unvisitredRetrieval
-		
-		//put current node in the visited, and remove it from the unvisited and retrieval
-		//get nodes around current node
-			//if successor is finish, end
-			//if successor is land
-				//if successor is in the unvisited list
-					//if current.G+1 is smaller than successor.G, reparent successor
-				//else, add it to the unvisited list
-		
-		
-		Node currentNode, successor;
-		Node goalNode = null;
-		
-		Boolean goalFound = false;
-		
-		//initialize unvisited, visited, and unvisitredRetrieval
-		PriorityQueue<Node> unvisited = new PriorityQueue<>();
-//			ArrayList<Node> unvisitedRetrieval = new ArrayList<Node>();
-		HashSet<Node> visited = new HashSet<Node>();
-		
-		//put current node in the visited, and remove it from the unvisited and retrieval
-		currentNode = new Node(this.currentPosition, null, goal);
-		//add base node to unvisited
-		unvisited.add(currentNode);
-
-		//while goal not found and the queue still has nodes
-		while ((!goalFound) && (!unvisited.isEmpty())){
-			//poll smalles node from the unvisited list
-			currentNode = unvisited.poll();
-			visited.add(currentNode);
-
-			//get nodes around current node
-			List<Position> around = visionMap.getAround(currentNode.getPosition());
-			for (Position successorPosition : around) {
-			
-				//if successor is finish, end
-				if (successorPosition.equals(goal)){
-					goalFound = true;
-					goalNode = new Node(successorPosition, currentNode, goal);
-				} else {
-					
-					//if successor is land
-					if (visionMap.getAt(successorPosition) == MapElement.LAND){
-						successor = new Node(successorPosition, currentNode, goal);
-						if (!visited.contains(successor)){
-
-							//if successor is in the unvisited list
-							if (unvisited.contains(successor)){
-								//if current.G+1 is smaller than successor.G, reparent successor
-								if (currentNode.getG() + 1 < successor.getG()){
-									successor.reparent(currentNode);
-								} 
-							} else {
-								//else, add it to the unvisited list
-								unvisited.add(successor);
-	//							unvisitedRetrieval.add(successor);
-							}
-							
-						}
-					}
-				}
-			}
-		}
-				
-		if (!goalFound)
+		if (!findPathToGoal(goal, visionMap))
 			try {
 				throw new Exception("Goal not reachable Exception.");
 			} catch (Exception e) {
@@ -212,117 +183,97 @@ public class Searcher {
 				e.printStackTrace();
 			}
 		
-		Path pathToGoalNode = new Path();
-		//Should be better as return parameter
-		while (goalNode.getPosition() != this.currentPosition){
-			pathToGoalNode.push(goalNode.getPosition());
-			goalNode = goalNode.getParent();
-		}
-		this.currentPath = pathToGoalNode;
-		
 		return;		
 	}
 	
+	/**
+	 * Shortest path to Position goal, by the goal search given on construction, taken from the Path cache if it is there.
+	 * The current Path is only replaced if the goal is reachable.
+	 * 
+	 * @param goal the Goal Position.
+	 * @param visionMap the current visible Map.
+	 * @return true if the goal is reachable, and the current Path leads there.
+	 */
+	public boolean findPathToGoal(Position goal, Map visionMap) {
+		return findPathToGoal(goal, visionMap, Deadline.NONE);
+	}
+
+	/**
+	 * Shortest path to Position goal, by the goal search given on construction, until a deadline. A search stopped by
+	 * the deadline is given up, and the current Path stays as it is.
+	 * 
+	 * @param goal the Goal Position.
+	 * @param visionMap the current visible Map.
+	 * @param deadline the deadline, or Deadline.NONE.
+	 * @return true if the goal is reachable, and the current Path leads there.
+	 */
+	public boolean findPathToGoal(Position goal, Map visionMap, long deadline) {
+		int start = visionMap.index(this.currentPosition);
+		int target = visionMap.index(goal);
+		boolean found = this.pathCache != null && this.pathCache.getPath(start, target, this.plannedPath);
+		if (!found) {
+			found = this.goalSearch.findPath(visionMap, start, target, this.plannedPath, deadline);
+			if (found && this.pathCache != null)
+				this.pathCache.putPath(visionMap, start, target, this.plannedPath, this.goalSearch);
+		}
+		if (!found)
+			return false;
+		Path swap = this.currentPath;
+		this.currentPath = this.plannedPath;
+		this.plannedPath = swap;
+		this.pathGoal = target;
+		this.partialPath = false;
+		return true;
+	}
+
 	/**
 	 * Implementation of BFS Algorithm for minimum distance to an unvisited Cell.
 	 * 
 	 * @param visionMap the current visible Map.
-	 * @param unvisitedCells the set of Cells.
+	 * @param cellStates the exploration state of the cells, the targets are the unvisited cells.
 	 */
-	public void findShortestPathToNearestUnvisitedCell(Map visionMap, HashSet<Position> unvisitedCells){
-			
-			//initialize unvisited, visited, and unvisitredRetrieval
-			
-			//put current node in the visited, and remove it from the unvisited and retrieval
-			//get nodes around current node
-				//if successor is finish, end
-				//if successor is land
-					//if successor is in the unvisited list
-						//if current.G+1 is smaller than successor.G, reparent successor
-					//else, add it to the unvisited list
-			
-			
-			Node currentNode, successor;
-			Node goalNode = null;
-			
-			Boolean frontierFound = false;
-			
-			//initialize unvisited, visited, and unvisitredRetrieval
-			Queue<Node> unvisited = new LinkedList<Node>();
-	//		ArrayList<Node> unvisitedRetrieval = new ArrayList<Node>();
-			HashSet<Node> visited = new HashSet<Node>();
-			
-			//put current node in the visited, and remove it from the unvisited and retrieval
-			currentNode = new Node(this.currentPosition, null);
-			//add base node to unvisited
-			unvisited.add(currentNode);
-	
-			//while goal not found and the queue still has nodes
-			while ((!frontierFound) && (!unvisited.isEmpty())){
-				//poll smalles node from the unvisited list
-				currentNode = unvisited.poll();
-				visited.add(currentNode);
-	
-				//get nodes around current node
-				List<Position> around = visionMap.getAround(currentNode.getPosition());
-				for (Position successorPosition : around) {
-				
-					//if successor is finish, end
-					if (unvisitedCells.contains(successorPosition)){
-						frontierFound = true;
-						goalNode = new Node(successorPosition, currentNode);
-					} else {
-						
-						//if successor is land
-						if (visionMap.getAt(successorPosition) == MapElement.LAND){
-							successor = new Node(successorPosition, currentNode);
-							if (!visited.contains(successor)){
-	
-								//if successor is in the unvisited list
-								if (unvisited.contains(successor)){
-									//if current.G+1 is smaller than successor.G, reparent successor
-									if (currentNode.getG() + 1 < successor.getG()){
-										successor.reparent(currentNode);
-									} 
-								} else {
-									//else, add it to the unvisited list
-									unvisited.add(successor);
-		//							unvisitedRetrieval.add(successor);
-								}
-								
-							}
-						}
-					}
-				}
-			}
-					
-			if (!frontierFound)
-				try {
-					throw new Exception("Goal not reachable Exception.");
-				} catch (Exception e) {
-					// TODO Handle outside
-					e.printStackTrace();
-				}
-			Path pathToGoalNode = new Path();
-			//Should be better as return parameter
-					
-			while (goalNode.getPosition() != this.currentPosition){
-				pathToGoalNode.push(goalNode.getPosition());
-				goalNode = goalNode.getParent();
-			}
-			
-			this.currentPath = pathToGoalNode;
-					
+	public void findShortestPathToNearestUnvisitedCell(Map visionMap, CellStates cellStates){
+		findShortestPathToNearestUnvisitedCell(visionMap, cellStates, Deadline.NONE);
+	}
+
+	/**
+	 * Implementation of BFS Algorithm for minimum distance to an unvisited Cell, until a deadline. If the deadline stops the BFS,
+	 * the Searcher gets a partial Path as far as the BFS has got, and the next call from a cell the BFS has reached goes on with it.
+	 * 
+	 * @param visionMap the current visible Map.
+	 * @param cellStates the exploration state of the cells, the targets are the unvisited cells.
+	 * @param deadline the deadline, or Deadline.NONE.
+	 */
+	public void findShortestPathToNearestUnvisitedCell(Map visionMap, CellStates cellStates, long deadline){
+		this.pathGoal = -1;
+		this.partialPath = false;
+		int start = visionMap.index(this.currentPosition);
+		if (this.pathCache != null && this.pathCache.getPathToNearestUnvisited(start, cellStates, this.currentPath))
 			return;
-		}
+		if (this.breadthFirstSearch.findPath(visionMap, start, cellStates.getUnvisited(), this.currentPath, deadline)) {
+			if (this.pathCache != null)
+				this.pathCache.putPathToNearestUnvisited(visionMap, start, this.currentPath, this.breadthFirstSearch);
+		} else if (this.breadthFirstSearch.isSuspended())
+			this.partialPath = this.breadthFirstSearch.findPartialPath(start, this.currentPath);
+		else
+			try {
+				throw new Exception("Goal not reachable Exception.");
+			} catch (Exception e) {
+				// TODO Handle outside
+				e.printStackTrace();
+			}
+		
+		return;
+	}
 	
 	/**
 	 * Changes the current Position of the Searcher to the corresponding new Position directed to Direction dir.
 	 * 
+	 * @param map the Map the Searcher moves on.
 	 * @param dir the Direction.
 	 */
-	public void direct(Direction dir) {
-		this.currentPosition = this.currentPosition.direct(dir);
+	public void direct(Map map, Direction dir) {
+		this.currentPosition = map.direct(this.currentPosition, dir);
 	}
 
 	/**
@@ -337,19 +288,20 @@ public class Searcher {
 	/**
 	 * Returns the next Position in the Path of the current Searcher.
 	 * 
+	 * @param map the Map the Path was searched on.
 	 * @return Position the Position
 	 */
-	public Position peekNextPathPosition() {
-		return this.currentPath.peek();
+	public Position peekNextPathPosition(Map map) {
+		return map.position(this.currentPath.peek());
 	}
 	
 	/**
-	 * Getter of the Path of the current Searcher.
+	 * Getter for the number of Positions left in the Path of the current Searcher.
 	 * 
-	 * @return
+	 * @return the remaining length.
 	 */
-	public Stack<Position> getPath(){ //TODO DELETE
-		return this.currentPath.getStack();
+	public int getRemainingPathLength() {
+		return this.currentPath.remaining();
 	}
 	
 }
@@ -18,6 +18,8 @@ public class SevenCanvas extends Canvas {
 	private final Color EMPTYCOLOR = Color.LIGHTGRAY;
 
 	private GraphicsContext gc = null;
+	private int columns = Map.MAPSIZE;
+	private int rows = Map.MAPSIZE;
 
 	public SevenCanvas() {
 		super(Map.MAPSIZE * CELLSIZE, Map.MAPSIZE * CELLSIZE);
@@ -29,68 +31,82 @@ public class SevenCanvas extends Canvas {
 		// Get the graphics context for the canvas. 
 		gc = getGraphicsContext2D();
 		// initialize picture
-		for (int row = 0; row < Map.MAPSIZE; ++row)
-			for (int column = 0; column < Map.MAPSIZE; ++column) {
-				draw(MapElement.EMPTY, new Position(column, row), false);
+		for (int row = 0; row < rows; ++row)
+			for (int column = 0; column < columns; ++column) {
+				draw(MapElement.EMPTY, column, row, false);
 			}
 
 	}        
 
+	// Resizes the canvas to the cells of a map of the given size
+	public void setMapSize(int columns, int rows) {
+		if (columns == this.columns && rows == this.rows)
+			return;
+		this.columns = columns;
+		this.rows = rows;
+		setWidth(columns * CELLSIZE);
+		setHeight(rows * CELLSIZE);
+	}
+
 	public void clear() {
 		gc.clearRect(0, 0, gc.getCanvas().getWidth(), gc.getCanvas().getHeight());
 		// re-initialize picture
-		for (int row = 0; row < Map.MAPSIZE; ++row)
-			for (int column = 0; column < Map.MAPSIZE; ++column) {
-				draw(MapElement.EMPTY, new Position(column, row), false);
+		for (int row = 0; row < rows; ++row)
+			for (int column = 0; column < columns; ++column) {
+				draw(MapElement.EMPTY, column, row, false);
 			}
 	}
 
 	public void show(Map m) {
-
-		for (int row = 0; row < Map.MAPSIZE; ++row)
-			for (int column = 0; column < Map.MAPSIZE; ++column) {
-				show(m, new Position(column, row), false);
+		// walk the cells in storage order, one column at a time
+		setMapSize(m.getWidth(), m.getHeight());
+		MapElement[] elements = MapElement.values();
+		byte[] cells = new byte[m.getHeight()];
+		for (int column = 0; column < m.getWidth(); ++column) {
+			m.getCells(m.index(column, 0), cells, 0, m.getHeight());
+			for (int row = 0; row < m.getHeight(); ++row) {
+				draw(elements[cells[row]], column, row, false);
 			}
+		}
 	}
 
 	public void show(Environment e) {
 
-		for (int row = 0; row < Environment.ENVIRONMENTSIZE; ++row)
-			for (int column = 0; column < Environment.ENVIRONMENTSIZE; ++column) {
-				Position pos = new Position(e.getRefPos().getColumn() - Environment.VISIBILITY + column, e.getRefPos().getRow() - Environment.VISIBILITY + row);
-				draw(e.getAt(new Position(column, row)), pos, false);
+		for (int row = 0; row < e.getSize(); ++row)
+			for (int column = 0; column < e.getSize(); ++column) {
+				draw(e.getAt(column, row), e.getLeft() + column, e.getTop() + row, false);
 			}
 	}
 
 	public void show(Map m, Position p, boolean swabian) {
-		draw(m.getAt(p), p, swabian);	
+		draw(m.getAt(p), p.getColumn(), p.getRow(), swabian);	
 	}
 	
-	private void draw(MapElement me, Position p, boolean swabian) {
+	private void draw(MapElement me, int column, int row, boolean swabian) {
 		switch (me) {
 		case LAND: case START: case FINISH:
 			gc.setFill(LANDCOLOR);
-			gc.fillRect(p.getColumn() * CELLSIZE, p.getRow() * CELLSIZE, CELLSIZE, CELLSIZE);
+			gc.fillRect(column * CELLSIZE, row * CELLSIZE, CELLSIZE, CELLSIZE);
 			if (swabian) {
 				gc.setFill(SWABIANCOLOR);
-				gc.fillOval(p.getColumn() * CELLSIZE + 1, p.getRow() * CELLSIZE + 1, CELLSIZE-2, CELLSIZE-2);			
+				gc.fillOval(column * CELLSIZE + 1, row * CELLSIZE + 1, CELLSIZE-2, CELLSIZE-2);			
 			}
 			if (me == MapElement.START) {
 				gc.setFill(STARTCOLOR);
-				gc.fillOval(p.getColumn() * CELLSIZE + 1, p.getRow() * CELLSIZE + 1, CELLSIZE-2, CELLSIZE-2);			
+				gc.fillOval(column * CELLSIZE + 1, row * CELLSIZE + 1, CELLSIZE-2, CELLSIZE-2);			
 			}
 			if (me == MapElement.FINISH) {
 				gc.setFill(FINISHCOLOR);
-				gc.fillOval(p.getColumn() * CELLSIZE + 1, p.getRow() * CELLSIZE + 1, CELLSIZE-2, CELLSIZE-2);			
+				gc.fillOval(column * CELLSIZE + 1, row * CELLSIZE + 1, CELLSIZE-2, CELLSIZE-2);			
 			}
 			break;
 		case WATER: 
 			gc.setFill(WATERCOLOR);
-			gc.fillRect(p.getColumn() * CELLSIZE, p.getRow() * CELLSIZE, CELLSIZE, CELLSIZE);
+			gc.fillRect(column * CELLSIZE, row * CELLSIZE, CELLSIZE, CELLSIZE);
 			break;
 		case EMPTY:
 			gc.setFill(EMPTYCOLOR);
-			gc.fillRect(p.getColumn() * CELLSIZE, p.getRow() * CELLSIZE, CELLSIZE, CELLSIZE);
+			gc.fillRect(column * CELLSIZE, row * CELLSIZE, CELLSIZE, CELLSIZE);
 			break;
 		}
 		
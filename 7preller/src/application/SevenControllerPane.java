@@ -13,18 +13,17 @@ import java.io.File;
 import java.util.concurrent.Semaphore;
 
 import foundation.*;
+import engine.Game;
+import engine.GameListener;
 import ai.AI;
 
 public class SevenControllerPane extends VBox {
 	
-	public static final int NUMBEROFSWABIANS = 7;
+	public static final int NUMBEROFSWABIANS = Game.NUMBEROFSWABIANS;
 
 	private Map map = null;
-	private int round;
-	private int finish;
 	private Timeline timeline = null;
-	private Position swabian[] = null;
-	private AI ai = null;
+	private Game game = null;
 	
 	private Semaphore semaphore = null;
 	
@@ -60,7 +59,7 @@ public class SevenControllerPane extends VBox {
 				fileChooser.setTitle("Load Map");
 				fileChooser.setInitialDirectory(new File(System.getProperty("user.dir"))); 
 				fileChooser.getExtensionFilters().addAll(
-						new FileChooser.ExtensionFilter("MAP", "*.map"),
+						new FileChooser.ExtensionFilter("MAP", "*.map", "*.bmap"),
 						new FileChooser.ExtensionFilter("XML", "*.xml"),
 						new FileChooser.ExtensionFilter("All Files", "*.*")
 						);
@@ -68,6 +67,7 @@ public class SevenControllerPane extends VBox {
 				if (file != null) {
 					map = new Map(file.getAbsolutePath());
 					observationCanvas.show(map);
+					discoveryCanvas.setMapSize(map.getWidth(), map.getHeight());
 					discoveryCanvas.clear();
 					btnGo.setDisable(false);
 					lblRound.setText("");
@@ -82,24 +82,34 @@ public class SevenControllerPane extends VBox {
 		btnGo.setOnAction(new EventHandler<ActionEvent>() {
 			public void handle(ActionEvent ae) {
 				// Set up the GUI
-				finish = 0;
-				round = 0;
 				observationCanvas.show(map);
 				discoveryCanvas.clear();
 				btnStop.setDisable(false);
 				btnLoad.setDisable(true);
 				btnGo.setDisable(true);
-				lblRound.setText("Round:\t" + round);
-				lblFinish.setText("Finish:\t" + finish);
-				// Set up the Swabians
-				swabian = new Position[NUMBEROFSWABIANS];
-				for (int i = 0; i < NUMBEROFSWABIANS; ++i) 
-					swabian[i] = new Position(map.getStart());
+				lblRound.setText("Round:\t" + 0);
+				lblFinish.setText("Finish:\t" + 0);
+				// Set up the game with the Swabians and the AI
+				// The timeline waits for no move, so every move is bounded
+				AI ai = new AI(map.getWidth(), map.getHeight());
+				ai.setMoveBudget(AI.MOVEBUDGET);
+				game = new Game(map, ai);
+				game.setListener(new GameListener() {
+					public void environmentTaken(int swabian, Environment e) {
+						discoveryCanvas.show(e);
+					}
+					public void swabianMoved(int swabian, Position from, Position to) {
+						observationCanvas.show(map, from, false);
+						if (!to.equals(map.getFinish()))
+							observationCanvas.show(map, to, true);
+					}
+					public void swabianFinished(int swabian, int round) {
+						lblFinish.setText("Finish:\t" + game.getFinished());
+					}
+				});
 				// initialize semaphore and play animation
 				semaphore = new Semaphore(1);
 				timeline.playFromStart();
-				// start up AI
-				ai = new AI();
 			}
 		});
 
@@ -127,47 +137,16 @@ public class SevenControllerPane extends VBox {
 		if (!semaphore.tryAcquire()) 
 			return;
 		
-		// New round
-		++round;
-		lblRound.setText("Round:\t" + round);
+		// New round, all active Swabians are called up by the game
+		boolean over = game.playRound();
+		lblRound.setText("Round:\t" + game.getRound());
 		
-		// Call up all active Swabians
-		for (int i = 0; i < NUMBEROFSWABIANS; ++i) { 
-			if (swabian[i] != null) {
-			// Call up AI and accept move
-				Environment e = new Environment(map, swabian[i]);
-				discoveryCanvas.show(e);
-				Direction dir = ai.move(i, e);
-			// Legal move?
-				Position newpos = (new Position(swabian[i])).direct(dir);
-				boolean swabianCollision = false;
-				for (int j = 0; j < NUMBEROFSWABIANS; ++j) {
-					if (swabian[j] != null && swabian[j].equals(newpos)) 
-						swabianCollision = true;
-				}
-				if (swabianCollision)
-					continue;
-				MapElement me = map.getAt(newpos);
-				if (me == MapElement.WATER || me == MapElement.START) 
-					continue;
-			// Display move --- in finish???
-				observationCanvas.show(map, swabian[i], false);
-                swabian[i] = newpos;
-                if (swabian[i].equals(map.getFinish())) {
-                	swabian[i] = null;
-                	++finish;
-    				lblFinish.setText("Finish:\t" + finish);
-                } else {
-                	observationCanvas.show(map, swabian[i], true);
-                }
-			// All Finished ??
-                if (finish == NUMBEROFSWABIANS) {
-    				btnStop.setDisable(true);
-    				btnLoad.setDisable(false);
-    				btnGo.setDisable(false);
-                	timeline.stop();                	
-                }
-			}
+		// All Finished ??
+		if (over) {
+			btnStop.setDisable(true);
+			btnLoad.setDisable(false);
+			btnGo.setDisable(false);
+			timeline.stop();
 		}
 		// open the way
 		semaphore.release();
@@ -0,0 +1,254 @@
+package benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import ai.AI;
+import ai.AStar;
+import ai.BreadthFirstSearch;
+import ai.CellStates;
+import ai.DistanceField;
+import ai.GoalSearch;
+import ai.HierarchicalSearch;
+import ai.JumpPointSearch;
+import ai.Searcher;
+import engine.Game;
+import engine.Tournament;
+import foundation.Map;
+import foundation.MapConverter;
+import foundation.Position;
+
+/**
+ * Baseline benchmarks of the AI hot paths on the shipped maps.
+ * <p>
+ * Usage: <code>java benchmark.Benchmarks [directory] [filter] [map...]</code>
+ * <p>
+ * Only benchmarks whose name contains the filter are run. Without maps, the
+ * open, the river and the longest tournament map are used.
+ */
+public class Benchmarks {
+
+	private static final String[] DEFAULTMAPS = { "Area.map", "River2.map", "Tournament 2.map" };
+
+	private final Harness harness = new Harness();
+	private final String filter;
+
+	public Benchmarks(String filter) {
+		this.filter = filter;
+	}
+
+	/**
+	 * Loading and parsing a text map with MapParser, as Map(String) does.
+	 */
+	public void mapParse(Fixtures f) {
+		String fileName = f.getFileName();
+		parseThroughput("mapParse", f, fileName, () -> new Map(fileName));
+	}
+
+	/**
+	 * The line based parser Map used before, as the baseline of mapParse.
+	 */
+	public void mapParseLegacy(Fixtures f) {
+		String fileName = f.getFileName();
+		parseThroughput("mapParseLegacy", f, fileName, () -> LegacyMapParser.parse(fileName));
+	}
+
+	/**
+	 * MapParser on the same map compressed with gzip.
+	 */
+	public void mapParseGzip(Fixtures f) {
+		if (!"mapParseGzip".contains(filter))
+			return;
+		try {
+			File gzip = File.createTempFile("benchmark", ".map.gz");
+			gzip.deleteOnExit();
+			try (OutputStream out = new GZIPOutputStream(new FileOutputStream(gzip))) {
+				Files.copy(new File(f.getFileName()).toPath(), out);
+			}
+			parseThroughput("mapParseGzip", f, gzip.getPath(), () -> new Map(gzip.getPath()));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void parseThroughput(String name, Fixtures f, String fileName, Supplier<?> op) {
+		Harness.Result r = run(name, f, op);
+		if (r != null)
+			counter(name + ":input", f, r.getScore() * new File(fileName).length() / 1e6, "MB/s");
+	}
+
+	/**
+	 * Opening the same map converted to the binary format, which is mapped instead of parsed.
+	 */
+	public void mapOpenBinary(Fixtures f) {
+		if (!"mapOpenBinary".contains(filter))
+			return;
+		try {
+			File binary = File.createTempFile("benchmark", MapConverter.BINARYEXTENSION);
+			binary.deleteOnExit();
+			f.getMap().writeBinary(binary.getPath());
+			run("mapOpenBinary", f, () -> new Map(binary.getPath()));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * A* to the finish on the complete map from the reachable cells closest to the
+	 * four corners. One operation is one search per corner.
+	 */
+	public void aStarFarCorners(Fixtures f) {
+		goalSearchFarCorners("aStarFarCorners", f, new AStar());
+	}
+
+	/**
+	 * Jump Point Search on the same searches as aStarFarCorners.
+	 */
+	public void jpsFarCorners(Fixtures f) {
+		goalSearchFarCorners("jpsFarCorners", f, new JumpPointSearch());
+	}
+
+	/**
+	 * HPA* on the same searches as aStarFarCorners. The abstract graph is built once,
+	 * during warmup, as it would be for a vision map that does not change.
+	 */
+	public void hpaFarCorners(Fixtures f) {
+		goalSearchFarCorners("hpaFarCorners", f, new HierarchicalSearch());
+	}
+
+	private void goalSearchFarCorners(String name, Fixtures f, GoalSearch goalSearch) {
+		Map map = f.getMap();
+		Position finish = map.getFinish();
+		List<Position> starts = f.getFarCorners();
+		BreadthFirstSearch breadthFirstSearch = new BreadthFirstSearch();
+		int[] expansions = new int[1];
+		run(name, f, () -> {
+			Position last = null;
+			expansions[0] = 0;
+			for (Position start : starts) {
+				Searcher searcher = new Searcher(0, start, goalSearch, breadthFirstSearch);
+				searcher.findShortestPathToGoalNonGreedy(finish, map);
+				expansions[0] += goalSearch.getExpansions();
+				last = searcher.peekNextPathPosition(map);
+			}
+			return last;
+		});
+		counter(name + ":expansions", f, expansions[0], "#/op");
+	}
+
+	/**
+	 * The distance field to the finish on the complete map, followed downhill from the
+	 * same starting cells as aStarFarCorners. One operation is one flood and all walks.
+	 */
+	public void distanceFieldFarCorners(Fixtures f) {
+		Map map = f.getMap();
+		int finish = map.index(map.getFinish());
+		List<Position> starts = f.getFarCorners();
+		DistanceField field = new DistanceField();
+		run("distanceFieldFarCorners", f, () -> {
+			field.compute(map, finish);
+			int steps = 0;
+			for (Position start : starts) {
+				for (int cell = map.index(start); cell != finish; cell = downhill(map, field, cell))
+					++steps;
+			}
+			return steps;
+		});
+	}
+
+	private static int downhill(Map map, DistanceField field, int cell) {
+		int best = cell;
+		for (int n = map.neighbours(cell); n != 0; n &= n - 1) {
+			int neighbour = cell + map.neighbourOffset(Integer.numberOfTrailingZeros(n));
+			if (field.getDistance(neighbour) < field.getDistance(best))
+				best = neighbour;
+		}
+		return best;
+	}
+
+	/**
+	 * BFS to the nearest unvisited cell half way through exploration, from the cell
+	 * farthest away from all unvisited cells.
+	 */
+	public void bfsMidExploration(Fixtures f) {
+		Map visionMap = f.getMidExplorationMap();
+		CellStates cellStates = f.getMidExplorationCellStates();
+		Position start = f.getMidExplorationRemoteCell();
+		AStar aStar = new AStar();
+		BreadthFirstSearch breadthFirstSearch = new BreadthFirstSearch();
+		run("bfsMidExploration", f, () -> {
+			Searcher searcher = new Searcher(0, start, aStar, breadthFirstSearch);
+			searcher.findShortestPathToNearestUnvisitedCell(visionMap, cellStates);
+			return searcher.peekNextPathPosition(visionMap);
+		});
+	}
+
+	/**
+	 * Computing the unvisited cells and the frontier of the whole vision map from the bitboards half way through exploration.
+	 */
+	public void frontierMidExploration(Fixtures f) {
+		CellStates cellStates = f.getMidExplorationCellStates();
+		run("frontierMidExploration", f, () -> {
+			cellStates.compute();
+			return cellStates.nextFrontier(0);
+		});
+	}
+
+	/**
+	 * A complete game with a fresh AI, all moves of all Swabians.
+	 */
+	public void gameReplay(Fixtures f) {
+		Map map = f.getMap();
+		run("gameReplay", f, () -> new Game(map, new AI(map.getWidth(), map.getHeight())).run(Tournament.MAXROUNDS));
+	}
+
+	private Harness.Result run(String name, Fixtures f, Supplier<?> op) {
+		if (!name.contains(filter))
+			return null;
+		Harness.Result r = harness.measure(name, op);
+		System.out.println(Harness.format(r, new File(f.getFileName()).getName()));
+		return r;
+	}
+
+	private void counter(String name, Fixtures f, double value, String unit) {
+		if (!name.contains(filter))
+			return;
+		System.out.println(String.format("%-36s %-18s %10.1f %s", name, new File(f.getFileName()).getName(), value, unit));
+	}
+
+	public static void main(String[] args) {
+		String directory = args.length > 0 ? args[0] : System.getProperty("user.dir");
+		String filter = args.length > 1 ? args[1] : "";
+		List<String> maps = new ArrayList<String>();
+		for (int i = 2; i < args.length; ++i)
+			maps.add(args[i]);
+		if (maps.isEmpty())
+			for (String m : DEFAULTMAPS)
+				maps.add(m);
+
+		Benchmarks benchmarks = new Benchmarks(filter);
+		System.out.println(Harness.header());
+		for (String m : maps) {
+			Fixtures f = new Fixtures(new File(directory, m).getPath());
+			benchmarks.mapParse(f);
+			benchmarks.mapParseLegacy(f);
+			benchmarks.mapParseGzip(f);
+			benchmarks.mapOpenBinary(f);
+			benchmarks.aStarFarCorners(f);
+			benchmarks.jpsFarCorners(f);
+			benchmarks.hpaFarCorners(f);
+			benchmarks.distanceFieldFarCorners(f);
+			benchmarks.bfsMidExploration(f);
+			benchmarks.frontierMidExploration(f);
+			benchmarks.gameReplay(f);
+		}
+	}
+}
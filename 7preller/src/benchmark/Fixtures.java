@@ -0,0 +1,171 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+
+import ai.AI;
+import ai.CellStates;
+import engine.Game;
+import engine.GameListener;
+import engine.GameResult;
+import engine.Tournament;
+import foundation.*;
+
+/**
+ * Benchmark fixtures built from one of the shipped maps.
+ */
+public class Fixtures {
+
+	private final String fileName;
+	private final Map map;
+	private final GameResult result;
+	private Map visionMap;
+	private CellStates cellStates;
+	private Position remoteCell;
+
+	/**
+	 * Loads the map and plays one complete reference game on it.
+	 * 
+	 * @param fileName the map file.
+	 */
+	public Fixtures(String fileName) {
+		this.fileName = fileName;
+		this.map = new Map(fileName);
+		this.result = new Game(map, new AI(map.getWidth(), map.getHeight())).run(Tournament.MAXROUNDS);
+	}
+
+	public String getFileName() {
+		return fileName;
+	}
+
+	/**
+	 * @return the complete map, as the game sees it.
+	 */
+	public Map getMap() {
+		return map;
+	}
+
+	/**
+	 * @return the result of the reference game.
+	 */
+	public GameResult getResult() {
+		return result;
+	}
+
+	/**
+	 * Returns what the Swabians have discovered half way to the first arrival at the
+	 * finish of the reference game.
+	 * 
+	 * @return the vision map.
+	 */
+	public Map getMidExplorationMap() {
+		explore();
+		return visionMap;
+	}
+
+	/**
+	 * @return the cells visited and the discovered cells nobody has stood on yet, at mid exploration.
+	 */
+	public CellStates getMidExplorationCellStates() {
+		explore();
+		return cellStates;
+	}
+
+	/**
+	 * Returns the visited cell with the longest way to the nearest unvisited cell at
+	 * mid exploration, the worst case of a search for the nearest unvisited cell.
+	 * 
+	 * @return the position.
+	 */
+	public Position getMidExplorationRemoteCell() {
+		explore();
+		return remoteCell;
+	}
+
+	private void explore() {
+		if (visionMap != null)
+			return;
+		visionMap = new Map(map.getWidth(), map.getHeight());
+		cellStates = new CellStates(map);
+		cellStates.markVisited(map.index(map.getStart()));
+
+		Game game = new Game(map, new AI(map.getWidth(), map.getHeight()));
+		game.setListener(new GameListener() {
+			public void environmentTaken(int swabian, Environment e) {
+				visionMap.mergeIn(e);
+			}
+			public void swabianMoved(int swabian, Position from, Position to) {
+				cellStates.markVisited(map.index(to));
+			}
+			public void swabianFinished(int swabian, int round) {
+			}
+		});
+		int rounds = Math.max(1, result.getFirstFinishRound() / 2);
+		while (game.getRound() < rounds)
+			game.playRound();
+
+		for (int cell = 0; cell < map.getCellCount(); ++cell)
+			cellStates.cellChanged(visionMap, cell);
+		cellStates.compute();
+
+		// flood from all unvisited cells at once, the last visited cell reached is the most remote
+		HashSet<Position> reached = new HashSet<Position>();
+		Queue<Position> queue = new LinkedList<Position>();
+		for (int cell = cellStates.nextUnvisited(0); cell >= 0; cell = cellStates.nextUnvisited(cell + 1)) {
+			reached.add(map.position(cell));
+			queue.add(map.position(cell));
+		}
+		remoteCell = map.getStart();
+		while (!queue.isEmpty()) {
+			for (Position p : visionMap.getAround(queue.poll()))
+				if (visionMap.getAt(p) == MapElement.LAND && reached.add(p)) {
+					queue.add(p);
+					if (cellStates.isVisited(map.index(p)))
+						remoteCell = p;
+				}
+		}
+	}
+
+	/**
+	 * Returns for every corner of the map the LAND cell closest to it from which the
+	 * finish can be reached, the worst starting points for a search to the finish.
+	 * 
+	 * @return the starting positions.
+	 */
+	public List<Position> getFarCorners() {
+		boolean[][] reachable = new boolean[map.getWidth()][map.getHeight()];
+		Queue<Position> queue = new LinkedList<Position>();
+		queue.add(map.getFinish());
+		reachable[map.getFinish().getColumn()][map.getFinish().getRow()] = true;
+		while (!queue.isEmpty()) {
+			for (Position p : map.getAround(queue.poll()))
+				if (!reachable[p.getColumn()][p.getRow()] && map.getAt(p) == MapElement.LAND) {
+					reachable[p.getColumn()][p.getRow()] = true;
+					queue.add(p);
+				}
+		}
+
+		int right = map.getWidth() - 1, bottom = map.getHeight() - 1;
+		int[][] corners = { { 0, 0 }, { right, 0 }, { 0, bottom }, { right, bottom } };
+		List<Position> starts = new ArrayList<Position>();
+		for (int[] corner : corners) {
+			Position best = null;
+			int bestDistance = Integer.MAX_VALUE;
+			for (int column = 0; column < map.getWidth(); ++column)
+				for (int row = 0; row < map.getHeight(); ++row) {
+					int distance = Math.abs(column - corner[0]) + Math.abs(row - corner[1]);
+					if (reachable[column][row] && map.getAt(new Position(column, row)) == MapElement.LAND
+							&& distance < bestDistance) {
+						best = new Position(column, row);
+						bestDistance = distance;
+					}
+				}
+			if (best != null && !starts.contains(best))
+				starts.add(best);
+		}
+		return starts;
+	}
+}
@@ -0,0 +1,181 @@
+package benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.function.Supplier;
+
+/**
+ * A small measurement harness in the spirit of JMH, without its dependency: a
+ * benchmark is run in timed warmup and measurement iterations on the current
+ * thread. Throughput is reported in ops/s together with the allocation rate,
+ * read from the HotSpot per-thread allocation counter, and the collector
+ * activity during measurement.
+ */
+public class Harness {
+
+	private int warmupIterations = 3;
+	private int measurementIterations = 5;
+	private long iterationNanos = 500000000L;
+
+	private volatile Object sink;
+
+	/**
+	 * Result of one benchmark.
+	 */
+	public static class Result {
+		private final String name;
+		private final double[] opsPerSecond;
+		private final double bytesPerOp;
+		private final double bytesPerSecond;
+		private final long gcCount;
+		private final long gcMillis;
+
+		Result(String name, double[] opsPerSecond, double bytesPerOp, double bytesPerSecond, long gcCount, long gcMillis) {
+			this.name = name;
+			this.opsPerSecond = opsPerSecond;
+			this.bytesPerOp = bytesPerOp;
+			this.bytesPerSecond = bytesPerSecond;
+			this.gcCount = gcCount;
+			this.gcMillis = gcMillis;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public double getScore() {
+			double sum = 0;
+			for (double d : opsPerSecond)
+				sum += d;
+			return sum / opsPerSecond.length;
+		}
+
+		/**
+		 * @return half the width of the range of the measured iterations.
+		 */
+		public double getError() {
+			double min = Double.MAX_VALUE, max = 0;
+			for (double d : opsPerSecond) {
+				min = Math.min(min, d);
+				max = Math.max(max, d);
+			}
+			return (max - min) / 2;
+		}
+
+		/**
+		 * @return the allocated bytes per operation, or NaN if the JVM cannot tell.
+		 */
+		public double getBytesPerOp() {
+			return bytesPerOp;
+		}
+
+		public double getBytesPerSecond() {
+			return bytesPerSecond;
+		}
+
+		public long getGcCount() {
+			return gcCount;
+		}
+
+		public long getGcMillis() {
+			return gcMillis;
+		}
+	}
+
+	public void setWarmupIterations(int warmupIterations) {
+		this.warmupIterations = warmupIterations;
+	}
+
+	public void setMeasurementIterations(int measurementIterations) {
+		this.measurementIterations = measurementIterations;
+	}
+
+	public void setIterationMillis(long millis) {
+		this.iterationNanos = millis * 1000000L;
+	}
+
+	/**
+	 * Measures an operation. The value returned by the operation is consumed so the
+	 * JIT cannot drop the work.
+	 * 
+	 * @param name the name of the benchmark.
+	 * @param op the operation.
+	 * @return the result.
+	 */
+	public Result measure(String name, Supplier<?> op) {
+		for (int i = 0; i < warmupIterations; ++i)
+			iterate(op);
+
+		double[] opsPerSecond = new double[measurementIterations];
+		long ops = 0, nanos = 0;
+		long bytes = allocatedBytes();
+		long gcCount = gcCount(), gcMillis = gcMillis();
+		for (int i = 0; i < measurementIterations; ++i) {
+			long begin = System.nanoTime();
+			long n = iterate(op);
+			long elapsed = System.nanoTime() - begin;
+			opsPerSecond[i] = n * 1e9 / elapsed;
+			ops += n;
+			nanos += elapsed;
+		}
+		bytes = bytes < 0 ? -1 : allocatedBytes() - bytes;
+		gcCount = gcCount() - gcCount;
+		gcMillis = gcMillis() - gcMillis;
+
+		double bytesPerOp = bytes < 0 ? Double.NaN : (double) bytes / ops;
+		double bytesPerSecond = bytes < 0 ? Double.NaN : bytes * 1e9 / nanos;
+		return new Result(name, opsPerSecond, bytesPerOp, bytesPerSecond, gcCount, gcMillis);
+	}
+
+	private long iterate(Supplier<?> op) {
+		long end = System.nanoTime() + iterationNanos;
+		long n = 0;
+		do {
+			sink = op.get();
+			++n;
+		} while (System.nanoTime() < end);
+		return n;
+	}
+
+	private static long allocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (!(bean instanceof com.sun.management.ThreadMXBean))
+			return -1;
+		return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static long gcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+			count += Math.max(0, gc.getCollectionCount());
+		return count;
+	}
+
+	private static long gcMillis() {
+		long millis = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+			millis += Math.max(0, gc.getCollectionTime());
+		return millis;
+	}
+
+	/**
+	 * Prints the header line of a result table.
+	 */
+	public static String header() {
+		return String.format("%-36s %-18s %16s %10s %15s %12s %6s %8s", "Benchmark", "(map)", "Score", "Error",
+				"alloc.norm", "alloc.rate", "gc", "gc.time");
+	}
+
+	/**
+	 * Formats a result as a line of the result table.
+	 * 
+	 * @param r the result.
+	 * @param param the parameter of the benchmark.
+	 */
+	public static String format(Result r, String param) {
+		return String.format("%-36s %-18s %10.3f ops/s %10.3f %10.1f B/op %7.1f MB/s %6d %5d ms", r.getName(), param,
+				r.getScore(), r.getError(), r.getBytesPerOp(), r.getBytesPerSecond() / (1024 * 1024),
+				r.getGcCount(), r.getGcMillis());
+	}
+}
@@ -0,0 +1,100 @@
+package benchmark;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import foundation.Map;
+import foundation.MapElement;
+import foundation.MapException;
+import foundation.Position;
+
+/**
+ * The line based text map parser that Map used before MapParser, kept as the
+ * baseline of the parse benchmarks. It splits every line into strings and
+ * reports all errors as a generic "Error reading".
+ */
+public class LegacyMapParser {
+
+	public static Map parse(String fileName) {
+		Map map = null;
+		Position start = null;
+		Position finish = null;
+		String line = "";
+		String[] result = null;
+		BufferedReader in = null;
+
+		try {
+			// open the file
+			in = new BufferedReader(new FileReader(fileName));
+
+			// read header
+			line = in.readLine();
+			result = line.split(" ");
+			if (result.length != 1 || !result[0].toUpperCase().trim().equals("<MAP>"))
+				throw new MapException("MapException: Error reading header of " + fileName);
+
+			// read the map line vectors up to the footer, the size of the map follows from them
+			List<String> maplines = new ArrayList<String>();
+			line = in.readLine();
+			result = line.split(" ");
+			while (result.length == 3) {
+				if (!result[0].toUpperCase().trim().equals("<MAPLINE>") ||
+					!result[2].toUpperCase().trim().equals("</MAPLINE>") ||
+					(!maplines.isEmpty() && result[1].length() != maplines.get(0).length()))
+					throw new MapException("MapException: Error reading mapline " + maplines.size() + " in " + fileName);
+				maplines.add(result[1]);
+				line = in.readLine();
+				result = line.split(" ");
+			}
+			if (maplines.isEmpty())
+				throw new MapException("MapException: No maplines in " + fileName);
+			int width = maplines.get(0).length();
+			int height = maplines.size();
+			map = new Map(width, height);
+
+			for (int linecnt = 0; linecnt < height; ++linecnt) {
+				String mapline = maplines.get(linecnt);
+				for (int i = 0; i < width; ++i) {
+					char mapchar = mapline.charAt(i);
+					switch (mapchar) {
+					case '.':  map.setAt(i, linecnt, MapElement.WATER); break;
+					case '+':  map.setAt(i, linecnt, MapElement.LAND); break;
+					case 'S':  map.setAt(i, linecnt, MapElement.START); 
+			           if (start != null)
+							throw new MapException("MapException: Too many starting points in " + fileName);
+			           start = new Position(i, linecnt);
+			           break;
+					case 'F':  map.setAt(i, linecnt, MapElement.FINISH); 
+			           if (finish != null)
+							throw new MapException("MapException: Too many finish points in " + fileName);
+			           finish = new Position(i, linecnt);
+			           break;
+			        default:
+			        	throw new MapException("MapException: Erroneous character in mapline " + linecnt + " in " + fileName);
+					}
+				}
+			}
+			// read footer
+			if (result.length != 1 || !result[0].toUpperCase().trim().equals("</MAP>"))
+				throw new MapException("MapException: Error reading footer of " + fileName);
+			if (start == null)
+				throw new MapException("MapException: No starting point found in " + fileName);
+			if (finish == null)
+				throw new MapException("MapException: No finish point found in " + fileName);
+			map.setStart(start);
+			map.setFinish(finish);
+		} catch (Exception e) {
+			throw new MapException("MapException: Error reading " + fileName);
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {}
+			} 
+		}
+		return map;
+	}
+}
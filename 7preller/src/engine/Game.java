@@ -0,0 +1,149 @@
+package engine;
+
+import java.util.Arrays;
+
+import foundation.*;
+import ai.AI;
+
+/**
+ * The rules of the Seven Swabians without any user interface. A game moves the
+ * Swabians of one AI across one map, round by round, as fast as the AI answers.
+ * The JavaFX application drives a game from its timeline; tournaments and
+ * benchmarks simply call {@link #run(int)}.
+ */
+public class Game {
+
+	public static final int NUMBEROFSWABIANS = 7;
+
+	private final Map map;
+	private final AI ai;
+	private final int visibility;
+	private final Position swabian[] = new Position[NUMBEROFSWABIANS];
+	private final OccupancyGrid occupancy;
+	private final int finishRounds[] = new int[NUMBEROFSWABIANS];
+	private int round = 0;
+	private int finish = 0;
+	private GameListener listener = null;
+
+	public Game(Map map, AI ai) {
+		this(map, ai, Environment.VISIBILITY);
+	}
+
+	/**
+	 * @param map the map played on.
+	 * @param ai the AI moving the Swabians.
+	 * @param visibility how far every Swabian sees, the radius of its environment, at least 1.
+	 */
+	public Game(Map map, AI ai, int visibility) {
+		// the AI learns which neighbours it can step on only by seeing them
+		if (visibility < 1)
+			throw new IllegalArgumentException("Visibility " + visibility + ", the Swabians must see their neighbours");
+		this.map = map;
+		this.ai = ai;
+		this.visibility = visibility;
+		this.occupancy = new OccupancyGrid(map);
+		for (int i = 0; i < NUMBEROFSWABIANS; ++i) {
+			swabian[i] = map.getStart();
+			occupancy.enter(swabian[i]);
+		}
+		Arrays.fill(finishRounds, GameResult.NOTFINISHED);
+	}
+
+	public void setListener(GameListener listener) {
+		this.listener = listener;
+	}
+
+	public Map getMap() {
+		return map;
+	}
+
+	public int getVisibility() {
+		return visibility;
+	}
+
+	public int getRound() {
+		return round;
+	}
+
+	public int getFinished() {
+		return finish;
+	}
+
+	public boolean isOver() {
+		return finish == NUMBEROFSWABIANS;
+	}
+
+	/**
+	 * @param i the number of the Swabian.
+	 * @return its position, or null once it has reached the finish.
+	 */
+	public Position getSwabian(int i) {
+		return swabian[i];
+	}
+
+	/**
+	 * Plays one round: every Swabian still on the map is asked for its move once.
+	 * 
+	 * @return true if all Swabians have reached the finish.
+	 */
+	public boolean playRound() {
+		if (isOver())
+			return true;
+
+		// New round
+		++round;
+
+		// Call up all active Swabians
+		for (int i = 0; i < NUMBEROFSWABIANS; ++i) {
+			if (swabian[i] == null)
+				continue;
+			// Call up AI and accept move
+			Environment e = new Environment(map, swabian[i], visibility);
+			if (listener != null)
+				listener.environmentTaken(i, e);
+			Direction dir = ai.move(i, e);
+			// Legal move?
+			Position newpos = map.direct(swabian[i], dir);
+			if (!isLegal(newpos))
+				continue;
+			Position oldpos = swabian[i];
+			swabian[i] = newpos;
+			occupancy.move(oldpos, newpos);
+			if (listener != null)
+				listener.swabianMoved(i, oldpos, newpos);
+			// in finish?
+			if (newpos.equals(map.getFinish())) {
+				swabian[i] = null;
+				occupancy.leave(newpos);
+				finishRounds[i] = round;
+				++finish;
+				if (listener != null)
+					listener.swabianFinished(i, round);
+			}
+		}
+		return isOver();
+	}
+
+	/**
+	 * Plays rounds until all Swabians have arrived or maxRounds is reached.
+	 * 
+	 * @param maxRounds the upper bound of rounds, guards against AIs that get stuck.
+	 * @return the result of the game.
+	 */
+	public GameResult run(int maxRounds) {
+		while (!isOver() && round < maxRounds)
+			playRound();
+		return getResult();
+	}
+
+	public GameResult getResult() {
+		return new GameResult(round, finishRounds);
+	}
+
+	private boolean isLegal(Position newpos) {
+		if (occupancy.isOccupied(newpos))
+			return false;
+		MapElement me = map.getAt(newpos);
+		return me != MapElement.WATER && me != MapElement.START;
+	}
+}
@@ -0,0 +1,36 @@
+package engine;
+
+import foundation.Environment;
+import foundation.Position;
+
+/**
+ * Observer of a running {@link Game}. Front ends such as the JavaFX pane implement
+ * this to draw the game; headless runs simply do not register one.
+ */
+public interface GameListener {
+
+	/**
+	 * Called after the environment of a Swabian has been taken, before the AI moves it.
+	 * 
+	 * @param swabian the number of the Swabian.
+	 * @param e the environment handed to the AI.
+	 */
+	void environmentTaken(int swabian, Environment e);
+
+	/**
+	 * Called after a legal move of a Swabian has been applied.
+	 * 
+	 * @param swabian the number of the Swabian.
+	 * @param from the previous position.
+	 * @param to the new position.
+	 */
+	void swabianMoved(int swabian, Position from, Position to);
+
+	/**
+	 * Called when a Swabian has reached the finish and left the map.
+	 * 
+	 * @param swabian the number of the Swabian.
+	 * @param round the round in which it arrived.
+	 */
+	void swabianFinished(int swabian, int round);
+}
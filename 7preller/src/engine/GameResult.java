@@ -0,0 +1,75 @@
+package engine;
+
+/**
+ * Outcome of a {@link Game}: the number of rounds played and the round in which
+ * each Swabian reached the finish.
+ */
+public class GameResult {
+
+	public static final int NOTFINISHED = -1;
+
+	private final int rounds;
+	private final int[] finishRounds;
+
+	public GameResult(int rounds, int[] finishRounds) {
+		this.rounds = rounds;
+		this.finishRounds = finishRounds.clone();
+	}
+
+	public int getRounds() {
+		return rounds;
+	}
+
+	public int getSwabianCount() {
+		return finishRounds.length;
+	}
+
+	/**
+	 * @param swabian the number of the Swabian.
+	 * @return the round in which the Swabian arrived, or NOTFINISHED.
+	 */
+	public int getFinishRound(int swabian) {
+		return finishRounds[swabian];
+	}
+
+	public int getFinished() {
+		int finished = 0;
+		for (int r : finishRounds)
+			if (r != NOTFINISHED)
+				++finished;
+		return finished;
+	}
+
+	public boolean isComplete() {
+		return getFinished() == finishRounds.length;
+	}
+
+	/**
+	 * @return the round in which the first Swabian arrived, or NOTFINISHED.
+	 */
+	public int getFirstFinishRound() {
+		int first = NOTFINISHED;
+		for (int r : finishRounds)
+			if (r != NOTFINISHED && (first == NOTFINISHED || r < first))
+				first = r;
+		return first;
+	}
+
+	/**
+	 * @return the round in which the last Swabian arrived, or NOTFINISHED if not all did.
+	 */
+	public int getLastFinishRound() {
+		int last = 0;
+		for (int r : finishRounds) {
+			if (r == NOTFINISHED)
+				return NOTFINISHED;
+			last = Math.max(last, r);
+		}
+		return last;
+	}
+
+	public String toString() {
+		return "rounds=" + rounds + " finished=" + getFinished() + "/" + finishRounds.length
+				+ " first=" + getFirstFinishRound() + " last=" + getLastFinishRound();
+	}
+}
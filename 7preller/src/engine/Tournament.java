@@ -0,0 +1,266 @@
+package engine;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import foundation.Environment;
+import foundation.Map;
+import foundation.MapConverter;
+import foundation.MapException;
+import foundation.MapRegistry;
+import ai.AI;
+import ai.GoalSearch;
+
+/**
+ * Command line tournament: plays every map of a directory a number of times, all
+ * games concurrently on a fork-join pool, and prints a results table.
+ * <p>
+ * Usage: <code>java engine.Tournament [directory] [repetitions] [threads] [output] [visibility] [budget] [search]</code>
+ * <p>
+ * The output "-" is the console. The budget bounds the planning of every move, in microseconds. The search
+ * takes the Searchers to the finish: "field" (the default), "astar", "jps" or "hpa".
+ */
+public class Tournament {
+
+	public static final int MAXROUNDS = 100000;
+
+	private final List<String> maps;
+	private final int repetitions;
+	private int maxRounds = MAXROUNDS;
+	private int visibility = Environment.VISIBILITY;
+	private long moveBudget = 0;
+	private String goalSearch = "field";
+
+	/**
+	 * One played game of the tournament.
+	 */
+	public static class Entry {
+		private final String map;
+		private final int repetition;
+		private final GameResult result;
+		private final long nanos;
+		private final Throwable error;
+
+		Entry(String map, int repetition, GameResult result, long nanos, Throwable error) {
+			this.map = map;
+			this.repetition = repetition;
+			this.result = result;
+			this.nanos = nanos;
+			this.error = error;
+		}
+
+		public String getMap() {
+			return map;
+		}
+
+		public int getRepetition() {
+			return repetition;
+		}
+
+		/**
+		 * @return the result, or null if the game failed.
+		 */
+		public GameResult getResult() {
+			return result;
+		}
+
+		public long getNanos() {
+			return nanos;
+		}
+
+		public Throwable getError() {
+			return error;
+		}
+	}
+
+	public Tournament(List<String> maps, int repetitions) {
+		this.maps = new ArrayList<String>(maps);
+		this.repetitions = repetitions;
+	}
+
+	/**
+	 * Collects all files ending in ".map" of a directory, sorted by name. A map converted
+	 * to the binary format is taken from its ".bmap" file instead, unless the text file
+	 * has changed since; then the text file is taken and the stale conversion reported.
+	 * 
+	 * @param directory the directory.
+	 * @return the paths of the maps.
+	 */
+	public static List<String> mapsIn(String directory) {
+		File[] files = new File(directory).listFiles();
+		if (files == null)
+			throw new MapException("MapException: Cannot list maps in " + directory);
+		Arrays.sort(files);
+		List<String> maps = new ArrayList<String>();
+		for (File f : files) {
+			String name = f.getName().toLowerCase();
+			if (!f.isFile())
+				continue;
+			if (name.endsWith(".map")) {
+				File binary = new File(MapConverter.binaryName(f.getPath()));
+				if (!binary.isFile()) {
+					maps.add(f.getPath());
+				} else if (binary.lastModified() < f.lastModified()) {
+					System.err.println("Ignoring " + binary.getPath() + ", older than " + f.getPath());
+					maps.add(f.getPath());
+				} else {
+					maps.add(binary.getPath());
+				}
+			} else if (name.endsWith(MapConverter.BINARYEXTENSION) && !new File(textName(f.getPath())).isFile()) {
+				maps.add(f.getPath());
+			}
+		}
+		return maps;
+	}
+
+	// The text file a binary map was converted from
+	private static String textName(String binaryName) {
+		return binaryName.substring(0, binaryName.length() - MapConverter.BINARYEXTENSION.length()) + ".map";
+	}
+
+	public void setMaxRounds(int maxRounds) {
+		this.maxRounds = maxRounds;
+	}
+
+	public void setVisibility(int visibility) {
+		if (visibility < 1)
+			throw new IllegalArgumentException("Visibility " + visibility + ", the Swabians must see their neighbours");
+		this.visibility = visibility;
+	}
+
+	/**
+	 * @param nanos the planning budget of every move of the AIs, 0 for no bound.
+	 */
+	public void setMoveBudget(long nanos) {
+		this.moveBudget = nanos;
+	}
+
+	/**
+	 * @param name the search the AIs take to the finish with, "field" for the distance field, else a GoalSearch name.
+	 */
+	public void setGoalSearch(String name) {
+		if (!name.equalsIgnoreCase("field"))
+			GoalSearch.forName(name);
+		this.goalSearch = name;
+	}
+
+	/**
+	 * Plays all games on the given pool and waits for them.
+	 * 
+	 * @param pool the pool the games are submitted to.
+	 * @return one entry per game, in map and repetition order.
+	 */
+	public List<Entry> run(ForkJoinPool pool) {
+		List<Future<Entry>> futures = new ArrayList<Future<Entry>>();
+		for (String map : maps)
+			for (int rep = 0; rep < repetitions; ++rep) {
+				final String m = map;
+				final int r = rep;
+				futures.add(pool.submit(() -> play(m, r)));
+			}
+
+		List<Entry> entries = new ArrayList<Entry>();
+		for (Future<Entry> f : futures) {
+			try {
+				entries.add(f.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			} catch (ExecutionException e) {
+				// play() catches everything itself
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+		return entries;
+	}
+
+	private Entry play(String map, int repetition) {
+		// all games on a map share one read-only copy of it, read or waited for before the clock starts
+		Map m;
+		try {
+			m = MapRegistry.getDefault().get(map);
+		} catch (Throwable t) {
+			return new Entry(map, repetition, null, 0, t);
+		}
+		long begin = System.nanoTime();
+		try {
+			AI ai = new AI(m.getWidth(), m.getHeight());
+			ai.setMoveBudget(moveBudget);
+			if (!goalSearch.equalsIgnoreCase("field"))
+				ai.setGoalSearch(GoalSearch.forName(goalSearch));
+			Game game = new Game(m, ai, visibility);
+			GameResult result = game.run(maxRounds);
+			return new Entry(map, repetition, result, System.nanoTime() - begin, null);
+		} catch (Throwable t) {
+			return new Entry(map, repetition, null, System.nanoTime() - begin, t);
+		}
+	}
+
+	/**
+	 * Prints the results table, one line per game.
+	 * 
+	 * @param entries the played games.
+	 * @param out the stream to print to.
+	 */
+	public static void print(List<Entry> entries, PrintStream out) {
+		out.printf("%-24s %4s %8s %8s %8s %10s%n", "map", "rep", "rounds", "first", "all", "ms");
+		for (Entry e : entries) {
+			String name = new File(e.getMap()).getName();
+			double ms = e.getNanos() / 1e6;
+			if (e.getResult() == null) {
+				out.printf("%-24s %4d %8s %8s %8s %10.3f  %s%n", name, e.getRepetition(), "-", "-", "-", ms, e.getError());
+			} else {
+				GameResult r = e.getResult();
+				out.printf("%-24s %4d %8d %8s %8s %10.3f%n", name, e.getRepetition(), r.getRounds(),
+						rounds(r.getFirstFinishRound()), rounds(r.getLastFinishRound()), ms);
+			}
+		}
+	}
+
+	private static String rounds(int round) {
+		return round == GameResult.NOTFINISHED ? "-" : Integer.toString(round);
+	}
+
+	public static void main(String[] args) {
+		String directory = args.length > 0 ? args[0] : System.getProperty("user.dir");
+		int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+		Tournament tournament = new Tournament(mapsIn(directory), repetitions);
+		if (args.length > 4)
+			tournament.setVisibility(Integer.parseInt(args[4]));
+		if (args.length > 5)
+			tournament.setMoveBudget(Long.parseLong(args[5]) * 1000);
+		if (args.length > 6)
+			tournament.setGoalSearch(args[6]);
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		long begin = System.nanoTime();
+		List<Entry> entries;
+		try {
+			entries = tournament.run(pool);
+		} finally {
+			pool.shutdown();
+		}
+		long nanos = System.nanoTime() - begin;
+
+		PrintStream out = System.out;
+		try {
+			if (args.length > 3 && !args[3].equals("-"))
+				out = new PrintStream(args[3]);
+			print(entries, out);
+			out.printf("%d games on %d threads in %.1f ms%n", entries.size(), threads, nanos / 1e6);
+		} catch (FileNotFoundException e) {
+			System.err.println("Cannot write " + args[3]);
+		} finally {
+			if (out != System.out)
+				out.close();
+		}
+	}
+}
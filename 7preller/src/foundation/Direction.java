@@ -1,5 +1,21 @@
 package foundation;
 
 public enum Direction {
-	NORTH, NORTHEAST, EAST, SOUTHEAST, SOUTH, SOUTHWEST, WEST, NORTHWEST, STAY;
+	NORTH(0, -1), NORTHEAST(1, -1), EAST(1, 0), SOUTHEAST(1, 1), SOUTH(0, 1), SOUTHWEST(-1, 1), WEST(-1, 0), NORTHWEST(-1, -1), STAY(0, 0);
+
+	private final int columnOffset;
+	private final int rowOffset;
+
+	private Direction(int columnOffset, int rowOffset) {
+		this.columnOffset = columnOffset;
+		this.rowOffset = rowOffset;
+	}
+
+	public int getColumnOffset() {
+		return columnOffset;
+	}
+
+	public int getRowOffset() {
+		return rowOffset;
+	}
 }
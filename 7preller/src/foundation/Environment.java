@@ -1,38 +1,74 @@
 package foundation;
 
+/**
+ * What a Swabian sees around its position: the cells of the map within a radius,
+ * addressed from 0 to getSize() - 1 with the position in the middle. The cells are
+ * read from the map when asked for, nothing is copied; cells outside the map are EMPTY.
+ */
 public class Environment {
 
 	public static final int VISIBILITY = 1;
 	public static final int ENVIRONMENTSIZE = 2 * VISIBILITY + 1;
 	
-	private MapElement[][] env = new MapElement[ENVIRONMENTSIZE][ENVIRONMENTSIZE];
-	private Position refPos = null;
+	private final Map map;
+	private final Position refPos;
+	private final int radius;
 
+	// Sees nothing
 	public Environment() {
-		for (int i = 0; i < ENVIRONMENTSIZE; ++i)
-			for(int j = 0; j < ENVIRONMENTSIZE; ++j) 
-				env[i][j] = MapElement.EMPTY;
+		this(null, null, VISIBILITY);
 	}
 
 	public Environment(Map m, Position p) {
-		this();
-		for (int i = 0; i < ENVIRONMENTSIZE; ++i)
-			for(int j = 0; j < ENVIRONMENTSIZE; ++j) {
-				int currentX = p.getColumn() - VISIBILITY + i;
-				int currentY = p.getRow() - VISIBILITY + j;
-				if (currentX >= 0 && currentX < Map.MAPSIZE && currentY >= 0 && currentY < Map.MAPSIZE)
-					env[i][j] = m.getAt(new Position(currentX, currentY));
-			}
-		refPos = new Position(p);
+		this(m, p, VISIBILITY);
+	}
+
+	public Environment(Map m, Position p, int radius) {
+		if (radius < 0)
+			throw new IllegalArgumentException("Negative visibility " + radius);
+		this.map = m;
+		this.refPos = p;
+		this.radius = radius;
 	}
 
 	public MapElement getAt(Position p) { 
-		return env[p.getColumn()][p.getRow()];
+		return getAt(p.getColumn(), p.getRow());
+	}
+
+	public MapElement getAt(int column, int row) { 
+		int size = getSize();
+		if (column < 0 || column >= size || row < 0 || row >= size)
+			throw new IndexOutOfBoundsException("Cell " + column + "," + row + " of an environment of size " + size);
+		if (map == null)
+			return MapElement.EMPTY;
+		int mapColumn = getLeft() + column;
+		int mapRow = getTop() + row;
+		return map.contains(mapColumn, mapRow) ? map.getAt(mapColumn, mapRow) : MapElement.EMPTY;
 	}
 	
 	public Position getRefPos() { 
-		return new Position(refPos);
+		return refPos;
+	}
+
+	public int getRadius() {
+		return radius;
+	}
+
+	public int getSize() {
+		return 2 * radius + 1;
+	}
+
+	// The map column and row of the cell 0,0 of the environment
+	public int getLeft() {
+		return refPos.getColumn() - radius;
+	}
+
+	public int getTop() {
+		return refPos.getRow() - radius;
+	}
+
+	// The map seen, null if nothing is
+	Map getMap() {
+		return map;
 	}
-	
-	
 }
@@ -1,148 +1,540 @@
 package foundation;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class Map {
 
+	// Size of the classroom maps, used when no size is given
 	public static final int MAPSIZE = 100;
 
-	private MapElement[][] map = new MapElement[MAPSIZE][MAPSIZE];
+	private static final MapElement[] ELEMENTS = MapElement.values();
+
+	// Cells are kept in square tiles of TILESIZE x TILESIZE, allocated on the first write of
+	// something other than EMPTY, so a map that is mostly unknown stays small
+	private static final int TILESHIFT = 6;
+	private static final int TILESIZE = 1 << TILESHIFT;
+	private static final int TILEMASK = TILESIZE - 1;
+
+	// Binary format: a header of MAGIC, VERSION, width, height, start column and row, finish column
+	// and row as ints, followed by the cells column by column, one MapElement ordinal per byte
+	public static final int MAGIC = 0x374D4150; // "7MAP"
+	public static final int VERSION = 1;
+	private static final int HEADERSIZE = 8 * 4;
+
+	private int width;
+	private int height;
+	private int tilesDown;
+	// One byte per cell holding the ordinal of its MapElement, column by column inside a tile;
+	// null tiles are EMPTY, or still as in the base
+	private byte[][] tiles;
+	// Tiles not owned are shared with copies of the map, and copied before they are written
+	private boolean[] owned;
+	private boolean readOnly;
+	// Read-only cells of a binary map file, mapped into memory and shared by all copies
+	private ByteBuffer base;
+	// The canonical Position of every cell, created on first use tile by tile and shared with copies
+	private Position[][] positions;
+	// The index offset of every neighbour, for the height of the map
+	private int[] neighbourOffsets;
 	private Position start;
 	private Position finish;
+	// Buffer of mergeIn, only used while the map is written
+	private byte[] scratch;
+	// The number of cell changes so far, and the last of them in a ring once asked for
+	private long version;
+	private int[] changes;
+	private long trackedSince;
 
 	public Map() {
-		for (int i = 0; i < MAPSIZE; ++i)
-			for(int j = 0; j < MAPSIZE; ++j) 
-				map[i][j] = MapElement.EMPTY;
+		this(MAPSIZE, MAPSIZE);
+	}
+
+	public Map(int width, int height) {
+		init(width, height);
 		start = null;
 		finish = null;
 	}
 
 	public Map(Map m) {
-		for (int i = 0; i < MAPSIZE; ++i)
-			for(int j = 0; j < MAPSIZE; ++j) 
-				map[i][j] = m.map[i][j];
-		start = new Position(m.start); 
-		finish = new Position(m.finish); 
+		width = m.width;
+		height = m.height;
+		tilesDown = m.tilesDown;
+		// share the tiles until one of the two maps writes to them
+		tiles = m.tiles.clone();
+		owned = new boolean[tiles.length];
+		if (!m.readOnly)
+			Arrays.fill(m.owned, false);
+		base = m.base;
+		positions = m.positions;
+		neighbourOffsets = m.neighbourOffsets;
+		start = m.start;
+		finish = m.finish;
 	}
 
+	// Reads a map in the text format, or opens one in the binary format
 	public Map(String fileName) {
-		this();
+		if (isBinary(fileName))
+			openBinary(fileName);
+		else
+			readText(fileName);
+	}
 
-		String line = "";
-		String[] result = null;
-		BufferedReader in = null;
+	private void readText(String fileName) {
+		// take over the cells of the parsed map instead of copying them
+		Map m = new MapParser().parse(fileName);
+		width = m.width;
+		height = m.height;
+		tilesDown = m.tilesDown;
+		tiles = m.tiles;
+		owned = m.owned;
+		positions = m.positions;
+		neighbourOffsets = m.neighbourOffsets;
+		start = m.start;
+		finish = m.finish;
+	}
 
-		try {
-			// open the file
-			in = new BufferedReader(new FileReader(fileName));
+	private static boolean isBinary(String fileName) {
+		try (DataInputStream in = new DataInputStream(new FileInputStream(fileName))) {
+			return in.readInt() == MAGIC;
+		} catch (IOException e) {
+			return false;
+		}
+	}
 
-			// read header
-			line = in.readLine();
-			result = line.split(" ");
-			if (result.length != 1 || !result[0].toUpperCase().trim().equals("<MAP>"))
+	private void openBinary(String fileName) {
+		try (RandomAccessFile file = new RandomAccessFile(fileName, "r")) {
+			FileChannel channel = file.getChannel();
+			ByteBuffer header = ByteBuffer.allocate(HEADERSIZE);
+			while (header.hasRemaining() && channel.read(header) >= 0)
+				;
+			header.flip();
+			if (header.remaining() < HEADERSIZE || header.getInt() != MAGIC || header.getInt() != VERSION)
 				throw new MapException("MapException: Error reading header of " + fileName);
-
-			for (int linecnt = 0; linecnt < MAPSIZE; ++linecnt) {
-				// read the map line vector
-				line = in.readLine();
-				result = line.split(" ");
-				if (result.length != 3 || 
-					!result[0].toUpperCase().trim().equals("<MAPLINE>") ||
-					!result[2].toUpperCase().trim().equals("</MAPLINE>") ||
-					result[1].length() != MAPSIZE)
-					throw new MapException("MapException: Error reading mapline " + linecnt + " in " + fileName);
-				for (int i = 0; i < MAPSIZE; ++i) {
-					char mapchar = result[1].charAt(i);
-					switch (mapchar) {
-					case '.':  map[i][linecnt] = MapElement.WATER; break;
-					case '+':  map[i][linecnt] = MapElement.LAND; break;
-					case 'S':  map[i][linecnt] = MapElement.START; 
-			           if (start != null)
-							throw new MapException("MapException: Too many starting points in " + fileName);
-			           start = new Position(i, linecnt);
-			           break;
-					case 'F':  map[i][linecnt] = MapElement.FINISH; 
-			           if (finish != null)
-							throw new MapException("MapException: Too many finish points in " + fileName);
-			           finish = new Position(i, linecnt);
-			           break;
-			        default:
-			        	throw new MapException("MapException: Erroneous character in mapline " + linecnt + " in " + fileName);
-					}
-				}
-			}
-			// read footer
-			line = in.readLine();
-			result = line.split(" ");
-			if (result.length != 1 || !result[0].toUpperCase().trim().equals("</MAP>"))
-				throw new MapException("MapException: Error reading footer of " + fileName);
-			if (start == null)
+			init(header.getInt(), header.getInt());
+			start = position(header.getInt(), header.getInt());
+			finish = position(header.getInt(), header.getInt());
+			if ((long) HEADERSIZE + getCellCount() > Integer.MAX_VALUE || channel.size() != HEADERSIZE + getCellCount())
+				throw new MapException("MapException: Wrong size of " + fileName);
+			// the mapping stays valid after the channel is closed
+			base = channel.map(FileChannel.MapMode.READ_ONLY, HEADERSIZE, getCellCount());
+			if (!contains(start) || getAt(start) != MapElement.START)
 				throw new MapException("MapException: No starting point found in " + fileName);
-			if (finish == null)
+			if (!contains(finish) || getAt(finish) != MapElement.FINISH)
 				throw new MapException("MapException: No finish point found in " + fileName);
-		} catch (Exception e) {
+		} catch (IOException e) {
 			throw new MapException("MapException: Error reading " + fileName);
-		} finally {
-			if (in != null) {
-				try {
-					in.close();
-				} catch (IOException e) {}
-			} 
 		}
+	}
+
+	// Writes the map in the binary format
+	public void writeBinary(String fileName) {
+		if ((long) HEADERSIZE + getCellCount() > Integer.MAX_VALUE)
+			throw new MapException("MapException: Map too large for " + fileName);
+		try (RandomAccessFile file = new RandomAccessFile(fileName, "rw")) {
+			file.setLength(0);
+			ByteBuffer header = ByteBuffer.allocate(HEADERSIZE);
+			header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height);
+			header.putInt(start.getColumn()).putInt(start.getRow());
+			header.putInt(finish.getColumn()).putInt(finish.getRow());
+			header.flip();
+			FileChannel channel = file.getChannel();
+			channel.write(header);
+			byte[] column = new byte[height];
+			for (int i = 0; i < width; ++i) {
+				getCells(index(i, 0), column, 0, height);
+				channel.write(ByteBuffer.wrap(column));
+			}
+		} catch (IOException e) {
+			throw new MapException("MapException: Error writing " + fileName);
+		}
+	}
+
+	private void init(int width, int height) {
+		if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE)
+			throw new MapException("MapException: Illegal map size " + width + "x" + height);
+		this.width = width;
+		this.height = height;
+		tilesDown = (height + TILEMASK) >> TILESHIFT;
+		tiles = new byte[((width + TILEMASK) >> TILESHIFT) * tilesDown][];
+		owned = new boolean[tiles.length];
+		positions = new Position[tiles.length][];
+		neighbourOffsets = new int[NEIGHBOURS];
+		for (int k = 0; k < NEIGHBOURS; ++k)
+			neighbourOffsets[k] = NEIGHBOURCOLUMNS[k] * height + NEIGHBOURROWS[k];
+	}
+
+	// A read-only view of the map, safe to share between threads; its copies can be changed
+	public Map asReadOnly() {
+		if (readOnly)
+			return this;
+		Map view = new Map(this);
+		view.readOnly = true;
+		return view;
+	}
+
+	public boolean isReadOnly() {
+		return readOnly;
+	}
+
+	private void checkWritable() {
+		if (readOnly)
+			throw new MapException("MapException: Map is read-only, change a copy of it instead");
+	}
+
+	// Bytes of memory holding the cells, on the heap or mapped
+	long getFootprint() {
+		long footprint = base == null ? 0 : base.capacity();
+		for (byte[] tile : tiles)
+			if (tile != null)
+				footprint += tile.length;
+		return footprint;
+	}
 
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public boolean contains(int column, int row) {
+		return column >= 0 && column < width && row >= 0 && row < height;
+	}
+
+	public boolean contains(Position p) {
+		return contains(p.getColumn(), p.getRow());
+	}
+
+	// Cells outside the map would alias cells of other tiles or columns
+	private void checkContains(int column, int row) {
+		if (!contains(column, row))
+			throw new IndexOutOfBoundsException("Cell (" + column + "," + row + ") outside of the " + width + "x" + height + " map");
+	}
+
+	// Steps from p in direction to, staying at p at the border of the map
+	public Position direct(Position p, Direction to) {
+		int column = p.getColumn() + to.getColumnOffset();
+		int row = p.getRow() + to.getRowOffset();
+		return contains(column, row) ? position(column, row) : p;
 	}
 
 	public MapElement getAt(Position p) { 
-		return map[p.getColumn()][p.getRow()];
+		return getAt(p.getColumn(), p.getRow());
+	}
+
+	// Cells can also be addressed by a single index, column * height + row
+
+	public int getCellCount() {
+		return width * height;
+	}
+
+	public int index(int column, int row) {
+		checkContains(column, row);
+		return column * height + row;
+	}
+
+	public int index(Position p) {
+		return index(p.getColumn(), p.getRow());
+	}
+
+	public int column(int index) {
+		return index / height;
+	}
+
+	public int row(int index) {
+		return index % height;
+	}
+
+	public Position position(int index) {
+		return position(column(index), row(index));
+	}
+
+	// The same Position object for every call with the same cell, so the hot paths don't allocate
+	public Position position(int column, int row) {
+		if (!contains(column, row))
+			return new Position(column, row);
+		int t = tileOf(column, row);
+		Position[] tile = positions[t];
+		if (tile == null)
+			positions[t] = tile = new Position[TILESIZE * TILESIZE];
+		// Positions are immutable, so a race only creates a duplicate that is equal
+		Position p = tile[cellOf(column, row)];
+		if (p == null)
+			tile[cellOf(column, row)] = p = new Position(column, row);
+		return p;
+	}
+
+	// The eight neighbours of a cell are numbered 0 to 7, column by column from the
+	// north west to the south east. A search visits the bits of neighbours(column, row)
+	// and steps to neighbour k by neighbourOffset(k), without building any list:
+	//
+	//   for (int n = map.neighbours(column, row); n != 0; n &= n - 1) {
+	//       int k = Integer.numberOfTrailingZeros(n);
+	//       int neighbour = index + map.neighbourOffset(k);
+	//       ...
+	//   }
+
+	public static final int NEIGHBOURS = 8;
+	private static final int[] NEIGHBOURCOLUMNS = { -1, -1, -1, 0, 0, 1, 1, 1 };
+	private static final int[] NEIGHBOURROWS = { -1, 0, 1, -1, 1, -1, 0, 1 };
+	private static final int ALLNEIGHBOURS = 0xff;
+	private static final int WESTNEIGHBOURS = 0x07;
+	private static final int EASTNEIGHBOURS = 0xe0;
+	private static final int NORTHNEIGHBOURS = 0x29;
+	private static final int SOUTHNEIGHBOURS = 0x94;
+
+	// The neighbours of the cell that are inside the map, one bit each
+	public int neighbours(int column, int row) {
+		int mask = ALLNEIGHBOURS;
+		if (column == 0)
+			mask &= ~WESTNEIGHBOURS;
+		if (column == width - 1)
+			mask &= ~EASTNEIGHBOURS;
+		if (row == 0)
+			mask &= ~NORTHNEIGHBOURS;
+		if (row == height - 1)
+			mask &= ~SOUTHNEIGHBOURS;
+		return mask;
+	}
+
+	public int neighbours(int index) {
+		return neighbours(column(index), row(index));
+	}
+
+	public int neighbourOffset(int k) {
+		return neighbourOffsets[k];
+	}
+
+	public static int neighbourColumnOffset(int k) {
+		return NEIGHBOURCOLUMNS[k];
+	}
+
+	public static int neighbourRowOffset(int k) {
+		return NEIGHBOURROWS[k];
+	}
+
+	public MapElement getAt(int index) {
+		return getAt(column(index), row(index));
+	}
+
+	public MapElement getAt(int column, int row) {
+		checkContains(column, row);
+		byte[] tile = tiles[tileOf(column, row)];
+		if (tile != null)
+			return ELEMENTS[tile[cellOf(column, row)]];
+		if (base != null)
+			return element(base.get(index(column, row)));
+		return MapElement.EMPTY;
+	}
+
+	private static MapElement element(byte value) {
+		if (value < 0 || value >= ELEMENTS.length)
+			throw new MapException("MapException: Illegal cell value " + value);
+		return ELEMENTS[value];
+	}
+
+	public void setAt(int index, MapElement value) {
+		setAt(column(index), row(index), value);
+	}
+
+	public void setAt(int column, int row, MapElement value) {
+		checkWritable();
+		checkContains(column, row);
+		if (getAt(column, row) == value)
+			return;
+		writableTile(tileOf(column, row))[cellOf(column, row)] = (byte) value.ordinal();
+		changed(index(column, row));
+	}
+
+	private byte[] writableTile(int t) {
+		if (tiles[t] == null)
+			allocate(t);
+		else if (!owned[t])
+			tiles[t] = tiles[t].clone();
+		owned[t] = true;
+		return tiles[t];
+	}
+
+	// Gives a tile its own cells, copied from the base if there is one
+	private void allocate(int t) {
+		tiles[t] = new byte[TILESIZE * TILESIZE];
+		if (base == null)
+			return;
+		int column0 = (t / tilesDown) << TILESHIFT;
+		int row0 = (t % tilesDown) << TILESHIFT;
+		int rows = Math.min(TILESIZE, height - row0);
+		ByteBuffer cells = base.duplicate();
+		for (int column = column0; column < Math.min(column0 + TILESIZE, width); ++column) {
+			cells.position(index(column, row0));
+			cells.get(tiles[t], cellOf(column, row0), rows);
+		}
+	}
+
+	// Bulk access to consecutive cells, as MapElement ordinals; the cells of a column are consecutive
+
+	public void getCells(int index, byte[] dest, int offset, int length) {
+		while (length > 0) {
+			int column = column(index), row = row(index);
+			int run = Math.min(length, Math.min(height - row, TILESIZE - (row & TILEMASK)));
+			byte[] tile = tiles[tileOf(column, row)];
+			if (tile != null)
+				System.arraycopy(tile, cellOf(column, row), dest, offset, run);
+			else if (base != null) {
+				ByteBuffer cells = base.duplicate();
+				cells.position(index);
+				cells.get(dest, offset, run);
+			} else
+				Arrays.fill(dest, offset, offset + run, (byte) 0);
+			index += run;
+			offset += run;
+			length -= run;
+		}
+	}
+
+	public void setCells(int index, byte[] src, int offset, int length) {
+		checkWritable();
+		for (int i = 0; i < length; ++i)
+			if (src[offset + i] < 0 || src[offset + i] >= ELEMENTS.length)
+				throw new MapException("MapException: Illegal cell value " + src[offset + i]);
+		while (length > 0) {
+			int column = column(index), row = row(index);
+			int run = Math.min(length, Math.min(height - row, TILESIZE - (row & TILEMASK)));
+			int t = tileOf(column, row);
+			// only cells that change are written, so shared tiles stay shared as long as possible
+			byte[] tile = tiles[t];
+			int cell = cellOf(column, row);
+			boolean written = false;
+			for (int i = 0; i < run; ++i) {
+				byte old = tile != null ? tile[cell + i] : base != null ? base.get(index + i) : 0;
+				if (src[offset + i] != old) {
+					if (!written) {
+						tile = writableTile(t);
+						written = true;
+					}
+					tile[cell + i] = src[offset + i];
+					changed(index + i);
+				}
+			}
+			index += run;
+			offset += run;
+			length -= run;
+		}
+	}
+
+	// Changes of the cells are counted by a version, and logged once asked for: a consumer
+	// remembers getVersion() and later asks for the cells changed since, in proportion to
+	// the change instead of the size of the map
+
+	public long getVersion() {
+		return version;
+	}
+
+	// Logs the last changes from now on, at least capacity of them
+	public void trackChanges(int capacity) {
+		if (changes != null && changes.length >= capacity)
+			return;
+		changes = new int[Integer.highestOneBit(Math.max(1, capacity - 1)) << 1];
+		trackedSince = version;
+	}
+
+	// Copies the cells changed after the given version to dest, oldest first, once per change;
+	// -1 if they are not all logged any more, or were never tracked, and the map must be read again
+	public int getChanges(long since, int[] dest) {
+		if (since < 0 || since > version)
+			throw new IllegalArgumentException("No version " + since + " of a map at version " + version);
+		long count = version - since;
+		if (count == 0)
+			return 0;
+		if (changes == null || since < trackedSince || count > changes.length)
+			return -1;
+		if (count > dest.length)
+			throw new IllegalArgumentException(count + " changes do not fit into " + dest.length);
+		int mask = changes.length - 1;
+		for (int i = 0; i < count; ++i)
+			dest[i] = changes[(int) (since + i) & mask];
+		return (int) count;
+	}
+
+	private void changed(int index) {
+		if (changes != null)
+			changes[(int) version & (changes.length - 1)] = index;
+		++version;
+	}
+
+	private int tileOf(int column, int row) {
+		return (column >> TILESHIFT) * tilesDown + (row >> TILESHIFT);
+	}
+
+	private static int cellOf(int column, int row) {
+		return (column & TILEMASK) << TILESHIFT | (row & TILEMASK);
 	}
 
 	public Position getStart() {		
-		return new Position(start);
+		return start;
 	}
 
 	public Position getFinish() {		
-		return new Position(finish);
+		return finish;
 	}
 
 	public void setAt(Position p, MapElement value) {
-		map[p.getColumn()][p.getRow()] = value;
+		setAt(index(p), value);
 	}
 
+	// Takes over the cells of the environment that are inside this map
 	public void mergeIn(Environment e) {
-		Position refPos = e.getRefPos();
-		for (int i = 0; i < Environment.ENVIRONMENTSIZE; ++i)
-			for(int j = 0; j < Environment.ENVIRONMENTSIZE; ++j) {
-				int currentX = refPos.getColumn() - Environment.VISIBILITY + i;
-				int currentY = refPos.getRow() - Environment.VISIBILITY + j;
-				if (currentX >= 0 && currentX < Map.MAPSIZE && currentY >= 0 && currentY < Map.MAPSIZE)
-					map[currentX][currentY] = e.getAt(new Position(i, j));
-			}
-
+		checkWritable();
+		Map source = e.getMap();
+		int left = e.getLeft(), top = e.getTop();
+		int column0 = Math.max(0, left), column1 = Math.min(width, left + e.getSize());
+		int row0 = Math.max(0, top), row1 = Math.min(height, top + e.getSize());
+		if (source == null || row0 >= row1) {
+			for (int column = column0; column < column1; ++column)
+				for (int row = row0; row < row1; ++row)
+					setAt(column, row, e.getAt(column - left, row - top));
+			return;
+		}
+		// the rows seen are consecutive cells of every column, copied at once
+		int rows = row1 - row0;
+		int sourceRows = Math.max(0, Math.min(row1, source.height) - row0);
+		if (scratch == null || scratch.length < rows)
+			scratch = new byte[rows];
+		for (int column = column0; column < column1; ++column) {
+			int seen = column < source.width ? sourceRows : 0;
+			// the cells outside the source are not seen, EMPTY as Environment.getAt gives them
+			if (seen > 0)
+				source.getCells(source.index(column, row0), scratch, 0, seen);
+			Arrays.fill(scratch, seen, rows, (byte) 0);
+			setCells(index(column, row0), scratch, 0, rows);
+		}
 	}
 
 	public List<Position> getAround(Position p){
 		// Gets valid Positions around a point p
-		ArrayList<Position> list = new ArrayList<Position>();
-		
-		for (int i = 0; i <= Environment.VISIBILITY * 2 ; i++) {
-			for (int j = 0; j <= Environment.VISIBILITY * 2; j++) {
-				Position pos = new Position(p.getColumn() + i - 1, p.getRow() + j - 1);
-				if (pos.getColumn() >= 0 && pos.getColumn() <= 99 && pos.getRow() >= 0 && pos.getRow() <= 99)
-					list.add(pos);
-			}
+		ArrayList<Position> list = new ArrayList<Position>(NEIGHBOURS);
+		for (int n = neighbours(p.getColumn(), p.getRow()); n != 0; n &= n - 1) {
+			int k = Integer.numberOfTrailingZeros(n);
+			list.add(position(p.getColumn() + NEIGHBOURCOLUMNS[k], p.getRow() + NEIGHBOURROWS[k]));
 		}
-		list.remove(p); //TODO Check if hashcode works as expected
-		
-		
 		return list;
 	}
 
 	public void setStart(Position start) {
-		this.start = start;		
+		checkWritable();
+		this.start = position(start.getColumn(), start.getRow());		
+	}
+
+	public void setFinish(Position finish) {
+		checkWritable();
+		this.finish = position(finish.getColumn(), finish.getRow());
 	}
 }
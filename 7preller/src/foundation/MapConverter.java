@@ -0,0 +1,34 @@
+package foundation;
+
+import java.io.File;
+
+/**
+ * Converts maps from the text format into the binary format, which Map opens by
+ * mapping the file into memory instead of parsing it.
+ * 
+ * Usage: <code>java foundation.MapConverter map... </code>, every "name.map" is
+ * written next to it as "name.bmap".
+ */
+public class MapConverter {
+
+	public static final String BINARYEXTENSION = ".bmap";
+
+	public static String binaryName(String fileName) {
+		int dot = fileName.lastIndexOf('.');
+		if (dot <= fileName.lastIndexOf(File.separatorChar))
+			dot = fileName.length();
+		return fileName.substring(0, dot) + BINARYEXTENSION;
+	}
+
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			System.err.println("Usage: java foundation.MapConverter map...");
+			System.exit(1);
+		}
+		for (String fileName : args) {
+			String binary = binaryName(fileName);
+			new Map(fileName).writeBinary(binary);
+			System.out.println(fileName + " -> " + binary);
+		}
+	}
+}
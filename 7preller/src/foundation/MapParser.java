@@ -0,0 +1,285 @@
+package foundation;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Single pass parser for maps in the text format:
+ * <pre>
+ * &lt;MAP&gt;
+ * &lt;MAPLINE&gt; ..++S++.. &lt;/MAPLINE&gt;
+ * ...
+ * &lt;/MAP&gt;
+ * </pre>
+ * The bytes are decoded as they are read, without building strings, and errors
+ * name the line and column they were found at. Tags are case insensitive and may be
+ * separated by any number of blanks. Gzip compressed files are recognised by their
+ * magic number.
+ */
+public class MapParser {
+
+	private static final byte[] MAPTAG = "<MAP>".getBytes();
+	private static final byte[] MAPENDTAG = "</MAP>".getBytes();
+	private static final byte[] LINETAG = "<MAPLINE>".getBytes();
+	private static final byte[] LINEENDTAG = "</MAPLINE>".getBytes();
+
+	private static final int BUFFERSIZE = 1 << 14;
+	private static final int MAXTAGLENGTH = 16;
+
+	// The ordinals of WATER and LAND by character, -1 for all others
+	private static final byte[] PLAINCELLS = new byte[256];
+	static {
+		Arrays.fill(PLAINCELLS, (byte) -1);
+		PLAINCELLS['.'] = (byte) MapElement.WATER.ordinal();
+		PLAINCELLS['+'] = (byte) MapElement.LAND.ordinal();
+	}
+
+	// What the parser expects next
+	private static final int HEADER = 0;
+	private static final int LINE = 1;
+	private static final int CELLSTART = 2;
+	private static final int CELLS = 3;
+	private static final int LINEEND = 4;
+	private static final int EOL = 5;
+	private static final int DONE = 6;
+
+	private String source;
+	private int state;
+	private int line;
+	private int column;
+	private byte[] tag = new byte[MAXTAGLENGTH];
+	private int tagLength;
+	private int tagLine;
+	private int tagColumn;
+
+	private ByteBuffer buffer = ByteBuffer.allocate(BUFFERSIZE);
+
+	// The cells read so far, row by row
+	private byte[] cells = new byte[0];
+	private int cellCount;
+	private int width;
+	private int rows;
+	private int rowLength;
+	private Position start;
+	private Position finish;
+
+	public Map parse(String fileName) {
+		try (RandomAccessFile file = new RandomAccessFile(fileName, "r")) {
+			FileChannel channel = file.getChannel();
+			boolean gzip = file.length() >= 2 && file.read() == 0x1f && file.read() == 0x8b;
+			channel.position(0);
+			if (gzip)
+				return parse(Channels.newChannel(new GZIPInputStream(Channels.newInputStream(channel), BUFFERSIZE)), fileName);
+			// a text map has at least one character per cell
+			reserve((int) Math.min(file.length(), Integer.MAX_VALUE));
+			return parse(channel, fileName);
+		} catch (IOException e) {
+			throw new MapException("MapException: Error reading " + fileName + ": " + e.getMessage());
+		}
+	}
+
+	public Map parse(ReadableByteChannel in, String source) throws IOException {
+		this.source = source;
+		state = HEADER;
+		line = 1;
+		column = 0;
+		tagLength = 0;
+		cellCount = 0;
+		width = 0;
+		rows = 0;
+		start = null;
+		finish = null;
+
+		buffer.clear();
+		while (state != DONE && in.read(buffer) >= 0) {
+			buffer.flip();
+			byte[] bytes = buffer.array();
+			int limit = buffer.limit();
+			for (int i = 0; i < limit && state != DONE; ++i) {
+				// the bulk of a map are runs of WATER and LAND, copied without going through next()
+				if (state == CELLS) {
+					int run = i;
+					int end = width == 0 ? limit : Math.min(limit, i + width - rowLength);
+					reserve(cellCount + end - i);
+					byte[] cells = this.cells;
+					int count = this.cellCount;
+					for (byte cell; run < end && (cell = PLAINCELLS[bytes[run] & 0xff]) >= 0; ++run)
+						cells[count++] = cell;
+					this.cellCount = count;
+					rowLength += run - i;
+					column += run - i;
+					i = run;
+					if (i == limit)
+						break;
+				}
+				next(bytes[i]);
+			}
+			buffer.clear();
+		}
+		// the footer may end the file without a line break
+		if (state == LINE && tagLength > 0)
+			endTag();
+		if (state != DONE)
+			throw error(line, column + 1, "unexpected end of file");
+		if (rows == 0)
+			throw new MapException("MapException: No maplines in " + source);
+		if (start == null)
+			throw new MapException("MapException: No starting point found in " + source);
+		if (finish == null)
+			throw new MapException("MapException: No finish point found in " + source);
+
+		Map map = new Map(width, rows);
+		// the cells were read row by row, the map keeps them column by column
+		byte[] column = new byte[rows];
+		for (int c = 0; c < width; ++c) {
+			for (int r = 0, i = c; r < rows; ++r, i += width)
+				column[r] = cells[i];
+			map.setCells(map.index(c, 0), column, 0, rows);
+		}
+		map.setStart(start);
+		map.setFinish(finish);
+		return map;
+	}
+
+	private void next(byte b) {
+		++column;
+		boolean blank = b == ' ' || b == '\t' || b == '\r';
+		boolean newline = b == '\n';
+
+		switch (state) {
+		case CELLSTART:
+			if (!blank && !newline) {
+				state = CELLS;
+				cell(b);
+			}
+			break;
+		case CELLS:
+			if (blank || newline) {
+				endRow();
+				state = LINEEND;
+			} else
+				cell(b);
+			break;
+		case EOL:
+			if (!blank && !newline)
+				throw error(line, column, "unexpected '" + (char) b + "' at the end of the line");
+			break;
+		default:
+			// HEADER, LINE and LINEEND read a tag
+			if (blank || newline) {
+				if (tagLength > 0)
+					endTag();
+			} else {
+				if (tagLength == 0) {
+					tagLine = line;
+					tagColumn = column;
+				}
+				if (tagLength == MAXTAGLENGTH)
+					throw error(tagLine, tagColumn, "unknown tag");
+				tag[tagLength++] = b;
+			}
+		}
+
+		if (newline) {
+			if (state == EOL)
+				state = LINE;
+			else if (state == CELLSTART || state == CELLS || state == LINEEND)
+				throw error(line, column, "unexpected end of line, expected </MAPLINE>");
+			else if (state == HEADER)
+				throw error(line, column, "unexpected end of line, expected <MAP>");
+			else if (state == LINE)
+				throw error(line, column, "unexpected end of line, expected <MAPLINE> or </MAP>");
+			++line;
+			column = 0;
+		}
+	}
+
+	private void endTag() {
+		switch (state) {
+		case HEADER:
+			expect(MAPTAG);
+			state = EOL;
+			break;
+		case LINE:
+			if (isTag(MAPENDTAG)) {
+				state = DONE;
+			} else {
+				expect(LINETAG);
+				rowLength = 0;
+				state = CELLSTART;
+			}
+			break;
+		case LINEEND:
+			expect(LINEENDTAG);
+			state = EOL;
+			break;
+		}
+		tagLength = 0;
+	}
+
+	private boolean isTag(byte[] expected) {
+		if (tagLength != expected.length)
+			return false;
+		for (int i = 0; i < tagLength; ++i)
+			if (Character.toUpperCase(tag[i]) != expected[i])
+				return false;
+		return true;
+	}
+
+	private void expect(byte[] expected) {
+		if (!isTag(expected))
+			throw error(tagLine, tagColumn, "expected " + new String(expected));
+	}
+
+	private void cell(byte b) {
+		if (width > 0 && rowLength == width)
+			throw error(line, column, "mapline longer than " + width);
+		MapElement me;
+		switch (b) {
+		case '.':  me = MapElement.WATER; break;
+		case '+':  me = MapElement.LAND; break;
+		case 'S':
+			if (start != null)
+				throw error(line, column, "too many starting points");
+			start = new Position(rowLength, rows);
+			me = MapElement.START;
+			break;
+		case 'F':
+			if (finish != null)
+				throw error(line, column, "too many finish points");
+			finish = new Position(rowLength, rows);
+			me = MapElement.FINISH;
+			break;
+		default:
+			throw error(line, column, "erroneous character '" + (char) b + "'");
+		}
+		if (cellCount == Integer.MAX_VALUE)
+			throw error(line, column, "map too large");
+		reserve(cellCount + 1);
+		cells[cellCount++] = (byte) me.ordinal();
+		++rowLength;
+	}
+
+	private void reserve(int capacity) {
+		if (capacity > cells.length)
+			cells = Arrays.copyOf(cells, (int) Math.max(capacity, Math.min(Integer.MAX_VALUE, 2L * cells.length)));
+	}
+
+	private void endRow() {
+		if (width == 0)
+			width = rowLength;
+		else if (rowLength != width)
+			throw error(line, column, "mapline shorter than " + width);
+		++rows;
+	}
+
+	private MapException error(int line, int column, String message) {
+		return new MapException("MapException: " + source + ":" + line + ":" + column + ": " + message);
+	}
+}
@@ -0,0 +1,155 @@
+package foundation;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Process wide cache of the maps read from files. Every file is read once per
+ * modification, and handed out as a read-only view that any number of games may
+ * share, also concurrently. Who needs to change a map changes a copy of it, which
+ * copies only the tiles it writes to.
+ * <p>
+ * The cache is bounded by the memory of the cells it holds; the least recently used
+ * maps are dropped first.
+ */
+public class MapRegistry {
+
+	public static final long DEFAULTCAPACITY = 64L << 20;
+
+	private static final MapRegistry DEFAULT = new MapRegistry(DEFAULTCAPACITY);
+
+	private final long capacity;
+	private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+	private long footprint;
+	private long hits;
+	private long misses;
+
+	public MapRegistry(long capacity) {
+		this.capacity = capacity;
+	}
+
+	public static MapRegistry getDefault() {
+		return DEFAULT;
+	}
+
+	// The map in the file, read only when it is not cached or has changed since
+	public Map get(String fileName) {
+		File file;
+		try {
+			file = new File(fileName).getCanonicalFile();
+		} catch (IOException e) {
+			throw new MapException("MapException: Error reading " + fileName);
+		}
+		Key key = new Key(file.getPath(), file.lastModified());
+
+		Entry entry;
+		synchronized (this) {
+			entry = entries.get(key);
+			if (entry == null) {
+				++misses;
+				// an older version of the file is not asked for any more
+				for (Iterator<java.util.Map.Entry<Key, Entry>> it = entries.entrySet().iterator(); it.hasNext();) {
+					java.util.Map.Entry<Key, Entry> other = it.next();
+					if (other.getKey().path.equals(key.path)) {
+						if (other.getValue().counted)
+							footprint -= other.getValue().footprint;
+						it.remove();
+					}
+				}
+				entry = new Entry();
+				entries.put(key, entry);
+			} else
+				++hits;
+		}
+
+		Map map;
+		try {
+			map = entry.load(key.path);
+		} catch (RuntimeException e) {
+			synchronized (this) {
+				entries.remove(key, entry);
+			}
+			throw e;
+		}
+
+		synchronized (this) {
+			if (!entry.counted && entries.get(key) == entry) {
+				entry.counted = true;
+				footprint += entry.footprint;
+				evict(key);
+			}
+		}
+		return map;
+	}
+
+	private void evict(Key keep) {
+		for (Iterator<java.util.Map.Entry<Key, Entry>> it = entries.entrySet().iterator(); it.hasNext() && footprint > capacity;) {
+			java.util.Map.Entry<Key, Entry> e = it.next();
+			if (e.getKey().equals(keep) || !e.getValue().counted)
+				continue;
+			footprint -= e.getValue().footprint;
+			it.remove();
+		}
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+		footprint = 0;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized long getFootprint() {
+		return footprint;
+	}
+
+	public long getCapacity() {
+		return capacity;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	private static class Key {
+		private final String path;
+		private final long modified;
+
+		Key(String path, long modified) {
+			this.path = path;
+			this.modified = modified;
+		}
+
+		public boolean equals(Object o) {
+			return o instanceof Key && ((Key) o).path.equals(path) && ((Key) o).modified == modified;
+		}
+
+		public int hashCode() {
+			return 31 * path.hashCode() + Long.hashCode(modified);
+		}
+	}
+
+	// Reads the map once, also when several games ask for it at the same time
+	private static class Entry {
+		private Map map;
+		private long footprint;
+		// guarded by the registry
+		private boolean counted;
+
+		synchronized Map load(String path) {
+			if (map == null) {
+				map = new Map(path).asReadOnly();
+				footprint = map.getFootprint();
+			}
+			return map;
+		}
+	}
+}
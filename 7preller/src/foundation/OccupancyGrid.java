@@ -0,0 +1,106 @@
+package foundation;
+
+import java.util.Arrays;
+
+/**
+ * The number of Swabians on every cell of a map, kept up to date move by move, so
+ * whether a cell is taken is known at once whatever the number of Swabians. All of
+ * them start on the same cell, so a cell may hold several. Only the cells taken are
+ * kept, in an open addressing table, so the memory grows with the Swabians, not with
+ * the map.
+ */
+public class OccupancyGrid {
+
+	private static final int FREE = -1;
+
+	private final Map map;
+	private int[] cells = new int[16];
+	private int[] count = new int[16];
+	private int size;
+
+	public OccupancyGrid(Map map) {
+		this.map = map;
+		Arrays.fill(cells, FREE);
+	}
+
+	public void enter(Position p) {
+		int cell = map.index(p);
+		int slot = slot(cell);
+		if (cells[slot] == FREE) {
+			if (2 * (size + 1) > cells.length) {
+				grow();
+				slot = slot(cell);
+			}
+			cells[slot] = cell;
+			size++;
+		}
+		++count[slot];
+	}
+
+	public void leave(Position p) {
+		int slot = slot(map.index(p));
+		if (cells[slot] == FREE)
+			throw new IllegalStateException("Nobody to leave " + p);
+		if (--count[slot] == 0)
+			remove(slot);
+	}
+
+	public void move(Position from, Position to) {
+		leave(from);
+		enter(to);
+	}
+
+	public boolean isOccupied(Position p) {
+		return getCount(p) > 0;
+	}
+
+	public int getCount(Position p) {
+		if (!map.contains(p))
+			return 0;
+		int slot = slot(map.index(p));
+		return cells[slot] == FREE ? 0 : count[slot];
+	}
+
+	// The slot of a cell, or the free slot it would go in
+	private int slot(int cell) {
+		int mask = cells.length - 1;
+		int slot = home(cell);
+		while (cells[slot] != FREE && cells[slot] != cell)
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	private int home(int cell) {
+		return cell * 0x9E3779B9 >>> Integer.numberOfLeadingZeros(cells.length - 1);
+	}
+
+	// Shifts the cells after the hole in its run back, so no probe stops early
+	private void remove(int hole) {
+		int mask = cells.length - 1;
+		cells[hole] = FREE;
+		size--;
+		for (int k = (hole + 1) & mask; cells[k] != FREE; k = (k + 1) & mask) {
+			if (((k - home(cells[k])) & mask) >= ((k - hole) & mask)) {
+				cells[hole] = cells[k];
+				count[hole] = count[k];
+				cells[k] = FREE;
+				count[k] = 0;
+				hole = k;
+			}
+		}
+	}
+
+	private void grow() {
+		int[] oldCells = cells;
+		int[] oldCount = count;
+		cells = new int[oldCells.length * 2];
+		count = new int[oldCells.length * 2];
+		Arrays.fill(cells, FREE);
+		for (int k = 0; k < oldCells.length; k++)
+			if (oldCells[k] != FREE) {
+				int slot = slot(oldCells[k]);
+				cells[slot] = oldCells[k];
+				count[slot] = oldCount[k];
+			}
+	}
+}
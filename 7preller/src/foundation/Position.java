@@ -2,8 +2,8 @@ package foundation;
 
 public class Position {
 
-	private int column;
-	private int row;
+	private final int column;
+	private final int row;
 	
 	public Position(int column, int row) {
 		this.column = column;
@@ -23,27 +23,11 @@ public class Position {
 		return row;
 	}
 	
-	public boolean legal() {
-		return column >= 0 && column < Map.MAPSIZE && row >= 0 && row < Map.MAPSIZE;
-	}
-	
+	// The neighbour in direction to, which may lie outside of the map; see Map.direct
 	public Position direct(Direction to) {
-		Position res = null;
-		switch (to) {
-		case NORTH: 	res =  new Position(column, row-1);		break;
-		case NORTHEAST:	res =  new Position(column+1, row-1);	break;
-		case EAST: 		res =  new Position(column+1, row);		break;
-		case SOUTHEAST: res =  new Position(column+1, row+1);	break;
-		case SOUTH: 	res =  new Position(column, row+1);		break;
-		case SOUTHWEST: res =  new Position(column-1, row+1);	break;
-		case WEST: 		res =  new Position(column-1, row);		break;
-		case NORTHWEST: res =  new Position(column-1, row-1);	break;
-		case STAY:		res =  new Position(column, row);	break;
-		}
-		if (res.legal())
-			return res;
-		else
+		if (to == Direction.STAY)
 			return this;
+		return new Position(column + to.getColumnOffset(), row + to.getRowOffset());
 	}
 	
 	public boolean equals(Object o) {
@@ -54,8 +38,9 @@ public class Position {
 		return "(" + column + "/" + row + ")";
 	}
 	
+	// The column scattered by a golden-ratio multiplier, mixed with the row
 	@Override
 	public int hashCode(){
-		return this.column*Map.MAPSIZE + this.row;
+		return this.column * 0x9E3779B9 ^ this.row;
 	}
 }